@@ -0,0 +1,31 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import ru.yandex.practicum.filmorate.ratelimit.WriteRateLimitInterceptor;
+import ru.yandex.practicum.filmorate.replication.ReplicaInterceptor;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+    private final WriteRateLimitInterceptor writeRateLimitInterceptor;
+    private final ObjectProvider<ReplicaInterceptor> replicaInterceptor;
+
+    @Autowired
+    public WebConfig(WriteRateLimitInterceptor writeRateLimitInterceptor,
+                     ObjectProvider<ReplicaInterceptor> replicaInterceptor) {
+        this.writeRateLimitInterceptor = writeRateLimitInterceptor;
+        this.replicaInterceptor = replicaInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // Реплика отклоняет запись раньше, чем запрос потратит токены лимитера
+        replicaInterceptor.ifAvailable(interceptor -> registry.addInterceptor(interceptor)
+                .addPathPatterns("/films", "/films/**", "/users", "/users/**"));
+        registry.addInterceptor(writeRateLimitInterceptor)
+                .addPathPatterns("/films", "/films/**", "/users", "/users/**");
+    }
+}
@@ -0,0 +1,28 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.yandex.practicum.filmorate.service.EventService;
+
+@RestController
+@RequestMapping("/events")
+@Slf4j
+public class EventController {
+    private final EventService eventService;
+
+    @Autowired
+    public EventController(EventService eventService) {
+        this.eventService = eventService;
+    }
+
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe(@RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId,
+                                @RequestParam(required = false) Long offset) {
+        log.info("Получен запрос на подписку на события, Last-Event-ID={}, offset={}", lastEventId, offset);
+        Long fromOffset = lastEventId != null ? Long.valueOf(lastEventId + 1) : offset;
+        return eventService.subscribe(fromOffset);
+    }
+}
@@ -48,6 +48,13 @@ public class FilmController {
         return updatedFilm;
     }
 
+    @DeleteMapping("/{id}")
+    public void delete(@PathVariable Long id) {
+        log.info("Получен запрос на удаление фильма с ID={}", id);
+        filmService.delete(id);
+        log.info("Фильм с ID={} успешно удален", id);
+    }
+
     @PutMapping("/{id}/like/{userId}")
     public void addLike(@PathVariable Long id, @PathVariable Long userId) {
         log.info("Получен запрос на добавление лайка фильму ID={} от пользователя ID={}", id, userId);
@@ -0,0 +1,49 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.yandex.practicum.filmorate.replication.ReplicationFollower;
+import ru.yandex.practicum.filmorate.replication.ReplicationLeader;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/replication")
+public class ReplicationController {
+    private final ObjectProvider<ReplicationLeader> leader;
+    private final ObjectProvider<ReplicationFollower> follower;
+
+    @Autowired
+    public ReplicationController(ObjectProvider<ReplicationLeader> leader,
+                                 ObjectProvider<ReplicationFollower> follower) {
+        this.leader = leader;
+        this.follower = follower;
+    }
+
+    @GetMapping("/status")
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("role", "standalone");
+        leader.ifAvailable(node -> {
+            status.put("role", "leader");
+            status.put("epoch", node.getEpoch());
+            status.put("headSeq", node.getHeadSeq());
+            status.put("followers", node.getFollowerCount());
+        });
+        follower.ifAvailable(replica -> {
+            status.put("role", "follower");
+            status.put("connected", replica.isConnected());
+            status.put("snapshotInProgress", replica.isSnapshotInProgress());
+            status.put("epoch", replica.getEpoch());
+            status.put("appliedSeq", replica.getAppliedSeq());
+            status.put("leaderSeq", replica.getLeaderSeq());
+            status.put("lagMutations", replica.getLagMutations());
+            status.put("lagMs", replica.getLagMillis());
+        });
+        return status;
+    }
+}
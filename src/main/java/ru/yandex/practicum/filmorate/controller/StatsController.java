@@ -0,0 +1,28 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.yandex.practicum.filmorate.service.StatisticsService;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/stats")
+@Slf4j
+public class StatsController {
+    private final StatisticsService statisticsService;
+
+    @Autowired
+    public StatsController(StatisticsService statisticsService) {
+        this.statisticsService = statisticsService;
+    }
+
+    @GetMapping
+    public Map<String, Object> getStats() {
+        log.info("Получен запрос на получение статистики");
+        return statisticsService.getStats();
+    }
+}
@@ -48,6 +48,13 @@ public class UserController {
         return updatedUser;
     }
 
+    @DeleteMapping("/{id}")
+    public void delete(@PathVariable Long id) {
+        log.info("Получен запрос на удаление пользователя с ID={}", id);
+        userService.delete(id);
+        log.info("Пользователь с ID={} успешно удален", id);
+    }
+
     @PutMapping("/{id}/friends/{friendId}")
     public void addFriend(@PathVariable Long id, @PathVariable Long friendId) {
         log.info("Получен запрос на добавление в друзья: пользователь ID={} добавляет пользователя ID={}", id, friendId);
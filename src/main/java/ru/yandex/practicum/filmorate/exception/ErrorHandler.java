@@ -1,7 +1,11 @@
 package ru.yandex.practicum.filmorate.exception;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
@@ -12,6 +16,19 @@ import java.util.Map;
 @RestControllerAdvice
 @Slf4j
 public class ErrorHandler {
+    private final RateLimitedLogger validationLog;
+    private final RateLimitedLogger notFoundLog;
+    private final RateLimitedLogger tooManyRequestsLog;
+    private final RateLimitedLogger readOnlyReplicaLog;
+    private final RateLimitedLogger replicationLagLog;
+
+    public ErrorHandler(@Value("${filmorate.errors.log-per-second:10}") int logPerSecond) {
+        this.validationLog = new RateLimitedLogger(log, "Validation error", logPerSecond);
+        this.notFoundLog = new RateLimitedLogger(log, "Not found error", logPerSecond);
+        this.tooManyRequestsLog = new RateLimitedLogger(log, "Too many requests", logPerSecond);
+        this.readOnlyReplicaLog = new RateLimitedLogger(log, "Write to replica", logPerSecond);
+        this.replicationLagLog = new RateLimitedLogger(log, "Replica lag", logPerSecond);
+    }
 
     @ExceptionHandler(MethodArgumentNotValidException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
@@ -21,28 +38,63 @@ public class ErrorHandler {
                 .findFirst()
                 .orElse("Validation error");
 
-        log.error("Validation error: {}", errorMessage);
+        validationLog.warn("Validation error: {}", errorMessage);
         return Map.of("error", errorMessage);
     }
 
     @ExceptionHandler(ValidationException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public Map<String, String> handleValidationException(ValidationException e) {
-        log.error("Validation error: {}", e.getMessage());
+        validationLog.warn("Validation error: {}", e.getMessage());
         return Map.of("error", e.getMessage());
     }
 
     @ExceptionHandler(NotFoundException.class)
     @ResponseStatus(HttpStatus.NOT_FOUND)
     public Map<String, String> handleNotFoundException(NotFoundException e) {
-        log.error("Not found error: {}", e.getMessage());
+        notFoundLog.warn("Not found error: {}", e.getMessage());
+        return Map.of("error", e.getMessage());
+    }
+
+    @ExceptionHandler(TooManyRequestsException.class)
+    @ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+    public Map<String, String> handleTooManyRequestsException(TooManyRequestsException e) {
+        tooManyRequestsLog.warn("Too many requests: {}", e.getMessage());
+        return Map.of("error", e.getMessage());
+    }
+
+    @ExceptionHandler(ReadOnlyReplicaException.class)
+    @ResponseStatus(HttpStatus.METHOD_NOT_ALLOWED)
+    public Map<String, String> handleReadOnlyReplicaException(ReadOnlyReplicaException e) {
+        readOnlyReplicaLog.warn("Write to replica: {}", e.getMessage());
         return Map.of("error", e.getMessage());
     }
 
+    @ExceptionHandler(ReplicationLagException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public Map<String, String> handleReplicationLagException(ReplicationLagException e) {
+        replicationLagLog.warn("Replica lag: {}", e.getMessage());
+        return Map.of("error", e.getMessage());
+    }
+
+    // Бросается при подписке на text/event-stream, где JSON-тело не согласовать, поэтому ответ без тела
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<Void> handleServiceUnavailableException(ServiceUnavailableException e) {
+        log.warn("Service unavailable: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").build();
+    }
+
+    // Клиент не принимает ни один формат тела (например, varint для ответа без фильмов), поэтому ответ без тела
+    @ExceptionHandler(HttpMediaTypeNotAcceptableException.class)
+    public ResponseEntity<Void> handleNotAcceptableException(HttpMediaTypeNotAcceptableException e) {
+        validationLog.warn("Not acceptable: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.NOT_ACCEPTABLE).build();
+    }
+
     @ExceptionHandler(Exception.class)
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     public Map<String, String> handleOtherExceptions(Exception e) {
         log.error("Internal server error: {}", e.getMessage(), e);
         return Map.of("error", "Внутренняя ошибка сервера");
     }
-}
\ No newline at end of file
+}
@@ -1,7 +1,8 @@
 package ru.yandex.practicum.filmorate.exception;
 
+// Без стека вызовов: 404 - штатный ответ, а заполнение стека - самая дорогая часть исключения
 public class NotFoundException extends RuntimeException {
     public NotFoundException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,45 @@
+package ru.yandex.practicum.filmorate.exception;
+
+import org.slf4j.Logger;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Пишет не больше maxPerSecond сообщений в секунду, о пропущенных сообщает одной строкой в следующем окне
+public class RateLimitedLogger {
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final Logger log;
+    private final String name;
+    private final int maxPerSecond;
+    private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+    private final AtomicInteger logged = new AtomicInteger();
+    private final AtomicLong suppressed = new AtomicLong();
+
+    public RateLimitedLogger(Logger log, String name, int maxPerSecond) {
+        this.log = log;
+        this.name = name;
+        this.maxPerSecond = maxPerSecond;
+    }
+
+    public void warn(String format, Object argument) {
+        if (!log.isWarnEnabled()) {
+            return;
+        }
+        long now = System.nanoTime();
+        long start = windowStart.get();
+        if (now - start >= WINDOW_NANOS && windowStart.compareAndSet(start, now)) {
+            logged.set(0);
+            long skipped = suppressed.getAndSet(0);
+            if (skipped > 0) {
+                log.warn("{}: пропущено {} сообщений за последнюю секунду", name, skipped);
+            }
+        }
+        if (logged.incrementAndGet() <= maxPerSecond) {
+            log.warn(format, argument);
+        } else {
+            suppressed.incrementAndGet();
+        }
+    }
+}
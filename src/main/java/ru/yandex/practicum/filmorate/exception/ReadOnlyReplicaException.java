@@ -0,0 +1,8 @@
+package ru.yandex.practicum.filmorate.exception;
+
+public class ReadOnlyReplicaException extends RuntimeException {
+
+    public ReadOnlyReplicaException(String message) {
+        super(message, null, false, false);
+    }
+}
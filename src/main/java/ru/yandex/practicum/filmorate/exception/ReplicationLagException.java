@@ -0,0 +1,8 @@
+package ru.yandex.practicum.filmorate.exception;
+
+public class ReplicationLagException extends RuntimeException {
+
+    public ReplicationLagException(String message) {
+        super(message, null, false, false);
+    }
+}
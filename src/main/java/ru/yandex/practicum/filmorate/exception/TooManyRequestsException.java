@@ -0,0 +1,8 @@
+package ru.yandex.practicum.filmorate.exception;
+
+public class TooManyRequestsException extends RuntimeException {
+
+    public TooManyRequestsException(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -3,6 +3,6 @@ package ru.yandex.practicum.filmorate.exception;
 public class ValidationException extends RuntimeException {
 
     public ValidationException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 }
@@ -0,0 +1,37 @@
+package ru.yandex.practicum.filmorate.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+public class Event {
+    private long offset;
+    private long timestamp;
+    private EntityType entity;
+    private EventType type;
+    private Long entityId;
+    private Long relatedId;
+    // Число лайков фильма или друзей пользователя после изменения, для DELETE - до удаления
+    private Integer entityDegree;
+    private Integer relatedDegree;
+    // Событие опубликовано репликой при применении журнала: каскады ведущего узла уже пришли в журнале
+    @JsonIgnore
+    private boolean replicated;
+
+    public Event(EntityType entity, EventType type, Long entityId, Long relatedId) {
+        this.timestamp = System.currentTimeMillis();
+        this.entity = entity;
+        this.type = type;
+        this.entityId = entityId;
+        this.relatedId = relatedId;
+    }
+
+    public Event(EntityType entity, EventType type, Long entityId, Long relatedId,
+                 Integer entityDegree, Integer relatedDegree) {
+        this(entity, type, entityId, relatedId);
+        this.entityDegree = entityDegree;
+        this.relatedDegree = relatedDegree;
+    }
+}
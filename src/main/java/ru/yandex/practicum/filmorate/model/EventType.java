@@ -0,0 +1,11 @@
+package ru.yandex.practicum.filmorate.model;
+
+public enum EventType {
+    CREATE,
+    UPDATE,
+    DELETE,
+    LIKE,
+    UNLIKE,
+    FRIEND_ADD,
+    FRIEND_REMOVE
+}
@@ -4,7 +4,6 @@ package ru.yandex.practicum.filmorate.model;
 import jakarta.validation.constraints.*;
 import lombok.Data;
 import java.time.LocalDate;
-import java.util.HashSet;
 import java.util.Set;
 
 @Data
@@ -24,10 +23,10 @@ public class Film {
     @Positive(message = "Продолжительность фильма должна быть положительным числом")
     private Integer duration;
 
-    private Set<Long> likes = new HashSet<>();
+    private Set<Long> likes = IdSets.newSet(16);
 
     public Film() {
-        this.likes = new HashSet<>();
+        this.likes = IdSets.newSet(16);
     }
 
     public Film(Long id, String name, String description, LocalDate releaseDate, Integer duration) {
@@ -36,6 +35,10 @@ public class Film {
         this.description = description;
         this.releaseDate = releaseDate;
         this.duration = duration;
-        this.likes = new HashSet<>();
+        this.likes = IdSets.newSet(16);
     }
-}
\ No newline at end of file
+
+    public void setLikes(Set<Long> likes) {
+        this.likes = IdSets.concurrentCopyOf(likes);
+    }
+}
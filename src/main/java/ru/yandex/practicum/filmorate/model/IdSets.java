@@ -0,0 +1,27 @@
+package ru.yandex.practicum.filmorate.model;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Наборы лайков и друзей сериализуются одними запросами, пока другие их меняют, поэтому они потокобезопасные
+public final class IdSets {
+
+    private IdSets() {
+    }
+
+    public static Set<Long> newSet(int expectedSize) {
+        return ConcurrentHashMap.newKeySet(expectedSize);
+    }
+
+    static Set<Long> concurrentCopyOf(Collection<Long> ids) {
+        if (ids instanceof ConcurrentHashMap.KeySetView<Long, ?>) {
+            return (Set<Long>) ids;
+        }
+        Set<Long> copy = newSet(ids == null ? 16 : ids.size());
+        if (ids != null) {
+            copy.addAll(ids);
+        }
+        return copy;
+    }
+}
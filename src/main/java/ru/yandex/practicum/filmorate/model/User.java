@@ -7,7 +7,6 @@ import jakarta.validation.constraints.PastOrPresent;
 import jakarta.validation.constraints.Pattern;
 import lombok.Data;
 import java.time.LocalDate;
-import java.util.HashSet;
 import java.util.Set;
 
 @Data
@@ -26,10 +25,10 @@ public class User {
     @PastOrPresent(message = "Некорректно введена дата рождения. Вы еще не родились:)")
     private LocalDate birthday;
 
-    private Set<Long> friends = new HashSet<>();
+    private Set<Long> friends = IdSets.newSet(16);
 
     public User() {
-        this.friends = new HashSet<>();
+        this.friends = IdSets.newSet(16);
     }
 
     public User(Long id, String login, String email, String name, LocalDate birthday) {
@@ -38,6 +37,10 @@ public class User {
         this.email = email;
         this.name = name;
         this.birthday = birthday;
-        this.friends = new HashSet<>();
+        this.friends = IdSets.newSet(16);
+    }
+
+    public void setFriends(Set<Long> friends) {
+        this.friends = IdSets.concurrentCopyOf(friends);
     }
 }
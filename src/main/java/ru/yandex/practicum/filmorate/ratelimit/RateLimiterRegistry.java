@@ -0,0 +1,79 @@
+package ru.yandex.practicum.filmorate.ratelimit;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+ * Вёдра по пользователям; размер ограничен, восстановившиеся вёдра вычищаются. Полную чистку делает фоновый
+ * поток, а запрос с новым ключом при заполненной таблице проверяет лишь несколько вёдер, продолжая обход
+ * с места прошлой попытки, поэтому перебор id ботом не превращает каждый запрос в скан всей таблицы.
+ * Если вычистить ничего не удалось, новый ключ попадает в одно из запасных вёдер по хешу, и один активный
+ * пользователь сверх лимита не исчерпывает запас для всех остальных.
+ */
+public class RateLimiterRegistry {
+    private static final int EVICTION_SAMPLE = 8;
+    private static final int OVERFLOW_STRIPES = 64;
+
+    private final Map<Long, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final double permitsPerSecond;
+    private final int burst;
+    private final int maxSize;
+    private final TokenBucket[] overflow = new TokenBucket[OVERFLOW_STRIPES];
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private Iterator<TokenBucket> evictionCursor = Collections.emptyIterator();
+
+    public RateLimiterRegistry(double permitsPerSecond, int burst, int maxSize) {
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+        this.maxSize = maxSize;
+        for (int i = 0; i < overflow.length; i++) {
+            overflow[i] = new TokenBucket(permitsPerSecond, burst);
+        }
+    }
+
+    public boolean tryAcquire(Long key, long nowNanos) {
+        TokenBucket bucket = buckets.get(key);
+        if (bucket == null) {
+            if (buckets.size() >= maxSize) {
+                evictSample(nowNanos);
+            }
+            bucket = buckets.size() < maxSize
+                    ? buckets.computeIfAbsent(key, k -> new TokenBucket(permitsPerSecond, burst))
+                    : overflow[Math.floorMod(Long.hashCode(key * 0x9E3779B97F4A7C15L), overflow.length)];
+        }
+        return bucket.tryAcquire(nowNanos);
+    }
+
+    public void evictFull(long nowNanos) {
+        buckets.values().removeIf(bucket -> bucket.isFull(nowNanos));
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    // Итератор ConcurrentHashMap слабо согласован, поэтому его можно продолжать между вызовами
+    private void evictSample(long nowNanos) {
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            for (int i = 0; i < EVICTION_SAMPLE; i++) {
+                if (!evictionCursor.hasNext()) {
+                    evictionCursor = buckets.values().iterator();
+                    if (!evictionCursor.hasNext()) {
+                        return;
+                    }
+                }
+                if (evictionCursor.next().isFull(nowNanos)) {
+                    evictionCursor.remove();
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package ru.yandex.practicum.filmorate.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import ru.yandex.practicum.filmorate.exception.TooManyRequestsException;
+
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class WriteRateLimitInterceptor implements HandlerInterceptor {
+    private static final String START_ATTRIBUTE = WriteRateLimitInterceptor.class.getName() + ".start";
+
+    private final boolean enabled;
+    private final TokenBucket globalBucket;
+    private final RateLimiterRegistry userBuckets;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final ScheduledExecutorService evictor;
+    private final Counter globalRejections;
+    private final Counter userRejections;
+    private final Counter concurrencyRejections;
+
+    public WriteRateLimitInterceptor(MeterRegistry meterRegistry,
+                                     @Value("${filmorate.ratelimit.enabled:true}") boolean enabled,
+                                     @Value("${filmorate.ratelimit.global.permits-per-second:5000}") double globalRate,
+                                     @Value("${filmorate.ratelimit.global.burst:10000}") int globalBurst,
+                                     @Value("${filmorate.ratelimit.user.permits-per-second:20}") double userRate,
+                                     @Value("${filmorate.ratelimit.user.burst:50}") int userBurst,
+                                     @Value("${filmorate.ratelimit.user.max-tracked:100000}") int maxTrackedUsers,
+                                     @Value("${filmorate.ratelimit.concurrency.initial-limit:200}") int initialLimit,
+                                     @Value("${filmorate.ratelimit.concurrency.min-limit:10}") int minLimit,
+                                     @Value("${filmorate.ratelimit.concurrency.max-limit:1000}") int maxLimit,
+                                     @Value("${filmorate.ratelimit.concurrency.latency-slo-ms:250}") long latencySloMillis,
+                                     @Value("${filmorate.ratelimit.concurrency.backoff-ratio:0.9}") double backoffRatio) {
+        this.enabled = enabled;
+        this.globalBucket = new TokenBucket(globalRate, globalBurst);
+        this.userBuckets = new RateLimiterRegistry(userRate, userBurst, maxTrackedUsers);
+        this.concurrencyLimiter = new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit,
+                TimeUnit.MILLISECONDS.toNanos(latencySloMillis), backoffRatio);
+        this.evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "rate-limit-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        evictor.scheduleWithFixedDelay(() -> userBuckets.evictFull(System.nanoTime()), 10, 10, TimeUnit.SECONDS);
+
+        this.globalRejections = rejectionCounter(meterRegistry, "global");
+        this.userRejections = rejectionCounter(meterRegistry, "user");
+        this.concurrencyRejections = rejectionCounter(meterRegistry, "concurrency");
+        Gauge.builder("filmorate.ratelimit.concurrency.limit", concurrencyLimiter, AdaptiveConcurrencyLimiter::getLimit)
+                .register(meterRegistry);
+        Gauge.builder("filmorate.ratelimit.concurrency.in-flight", concurrencyLimiter,
+                        AdaptiveConcurrencyLimiter::getInFlight)
+                .register(meterRegistry);
+        Gauge.builder("filmorate.ratelimit.user.buckets", userBuckets, RateLimiterRegistry::size)
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        evictor.shutdownNow();
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!enabled || HttpMethod.GET.matches(request.getMethod())) {
+            return true;
+        }
+        long now = System.nanoTime();
+        if (!globalBucket.tryAcquire(now)) {
+            globalRejections.increment();
+            throw new TooManyRequestsException("Слишком много запросов на изменение, попробуйте позже");
+        }
+        Long userId = extractUserId(request);
+        if (userId != null && !userBuckets.tryAcquire(userId, now)) {
+            userRejections.increment();
+            throw new TooManyRequestsException("Слишком много запросов от пользователя с id=" + userId);
+        }
+        if (!concurrencyLimiter.tryAcquire()) {
+            concurrencyRejections.increment();
+            throw new TooManyRequestsException("Сервер перегружен, попробуйте позже");
+        }
+        request.setAttribute(START_ATTRIBUTE, now);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        Object start = request.getAttribute(START_ATTRIBUTE);
+        if (start != null) {
+            concurrencyLimiter.release(System.nanoTime() - (Long) start);
+        }
+    }
+
+    // Для лайков пользователь - {userId}, для друзей - {id}
+    @SuppressWarnings("unchecked")
+    private Long extractUserId(HttpServletRequest request) {
+        Map<String, String> variables = (Map<String, String>) request.getAttribute(
+                HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        if (variables == null) {
+            return null;
+        }
+        String userId = variables.get("userId");
+        if (userId == null && request.getRequestURI().startsWith("/users/")) {
+            userId = variables.get("id");
+        }
+        try {
+            return userId == null ? null : Long.valueOf(userId);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Counter rejectionCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("filmorate.ratelimit.rejected")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,38 @@
+package ru.yandex.practicum.filmorate.replication;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.yandex.practicum.filmorate.model.EntityType;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+/*
+ * Одна строка журнала репликации. PUT несёт полное текущее состояние сущности, лайки и дружба
+ * передаются изменениями: LIKE/UNLIKE - фильм id и пользователь relatedId, FRIEND_ADD/FRIEND_REMOVE -
+ * оба пользователя. Изменения - операции над множествами, поэтому их повторное применение безопасно.
+ * Номер мутации идёт в строке перед JSON: ведущий кодирует мутацию до того, как получит номер.
+ * Записи снимка идут с seq = 0, а RESET, SNAPSHOT_END и HEARTBEAT несут эпоху журнала ведущего узла.
+ */
+@Data
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class Mutation {
+    private MutationType type;
+    @JsonIgnore
+    private long seq;
+    private long timestamp;
+    private Long epoch;
+    private EntityType entity;
+    private Long id;
+    private Long relatedId;
+    private Film film;
+    private User user;
+
+    public Mutation(MutationType type, long seq) {
+        this.type = type;
+        this.seq = seq;
+        this.timestamp = System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,47 @@
+package ru.yandex.practicum.filmorate.replication;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Кольцевой журнал уже сериализованных мутаций; номер мутации совпадает с её позицией в журнале
+class MutationLog {
+    private final String[] lines;
+    private long head;
+
+    MutationLog(int capacity) {
+        this.lines = new String[capacity];
+    }
+
+    // Под монитором только выдача номера: строка закодирована заранее, номер приписывается при отправке
+    synchronized long append(String line) {
+        long seq = head + 1;
+        lines[(int) (seq % lines.length)] = line;
+        head = seq;
+        notifyAll();
+        return seq;
+    }
+
+    synchronized long head() {
+        return head;
+    }
+
+    synchronized boolean contains(long cursor) {
+        return cursor >= head - lines.length && cursor <= head;
+    }
+
+    // null означает, что мутации после cursor уже вытеснены и реплике нужен новый снимок
+    synchronized List<String> readAfter(long cursor, int max, long waitMillis) throws InterruptedException {
+        if (cursor >= head) {
+            wait(waitMillis);
+        }
+        if (!contains(cursor)) {
+            return null;
+        }
+        long last = Math.min(head, cursor + max);
+        List<String> batch = new ArrayList<>((int) (last - cursor));
+        for (long seq = cursor + 1; seq <= last; seq++) {
+            batch.add(lines[(int) (seq % lines.length)]);
+        }
+        return batch;
+    }
+}
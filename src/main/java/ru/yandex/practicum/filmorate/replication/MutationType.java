@@ -0,0 +1,13 @@
+package ru.yandex.practicum.filmorate.replication;
+
+public enum MutationType {
+    PUT,
+    DELETE,
+    LIKE,
+    UNLIKE,
+    FRIEND_ADD,
+    FRIEND_REMOVE,
+    RESET,
+    SNAPSHOT_END,
+    HEARTBEAT
+}
@@ -0,0 +1,62 @@
+package ru.yandex.practicum.filmorate.replication;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import ru.yandex.practicum.filmorate.exception.ReadOnlyReplicaException;
+import ru.yandex.practicum.filmorate.exception.ReplicationLagException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+
+// Реплика принимает только чтение; токен X-Replication-Min-Seq вида "эпоха:номер" из ответа ведущего узла
+// гарантирует, что клиент увидит свою запись. Эпоха нужна, потому что после перезапуска ведущего узла
+// нумерация мутаций начинается заново
+@Component
+@ConditionalOnProperty(name = "filmorate.replication.role", havingValue = "follower")
+public class ReplicaInterceptor implements HandlerInterceptor {
+    public static final String MIN_SEQ_HEADER = "X-Replication-Min-Seq";
+
+    private final ReplicationFollower follower;
+    private final long readTimeoutMillis;
+
+    public ReplicaInterceptor(ReplicationFollower follower,
+                              @Value("${filmorate.replication.read-timeout-ms:1000}") long readTimeoutMillis) {
+        this.follower = follower;
+        this.readTimeoutMillis = readTimeoutMillis;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws InterruptedException {
+        if (!HttpMethod.GET.matches(request.getMethod())) {
+            throw new ReadOnlyReplicaException("Реплика доступна только для чтения, изменения принимает ведущий узел");
+        }
+        String minSeq = request.getHeader(MIN_SEQ_HEADER);
+        if (minSeq != null) {
+            long[] token = parseToken(minSeq);
+            if (!follower.awaitApplied(token[0], token[1], readTimeoutMillis)) {
+                throw new ReplicationLagException("Реплика ещё не применила мутацию " + minSeq
+                        + ", применена " + follower.getToken());
+            }
+        }
+        response.setHeader(ReplicationLeader.SEQ_HEADER, follower.getToken());
+        return true;
+    }
+
+    private static long[] parseToken(String value) {
+        int separator = value.indexOf(':');
+        try {
+            if (separator < 0) {
+                throw new NumberFormatException();
+            }
+            return new long[]{Long.parseLong(value.substring(0, separator).trim()),
+                    Long.parseLong(value.substring(separator + 1).trim())};
+        } catch (NumberFormatException e) {
+            throw new ValidationException("Заголовок " + MIN_SEQ_HEADER + " должен иметь вид эпоха:номер, получено: "
+                    + value);
+        }
+    }
+}
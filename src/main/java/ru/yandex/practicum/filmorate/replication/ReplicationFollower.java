@@ -0,0 +1,361 @@
+package ru.yandex.practicum.filmorate.replication;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.EntityType;
+import ru.yandex.practicum.filmorate.model.Event;
+import ru.yandex.practicum.filmorate.model.EventType;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.EntityLocks;
+import ru.yandex.practicum.filmorate.service.StatisticsService;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Реплика: в одном потоке читает журнал ведущего узла и применяет мутации к своим хранилищам
+ * в порядке номеров. После применения публикует то же событие, что и сервис ведущего узла
+ * (LIKE, FRIEND_ADD и т.д. со степенями после изменения), чтобы SSE-подписчики, статистика и
+ * рейтинг популярных фильмов на реплике обновлялись так же. Применение идёт под блокировкой
+ * сущности, как и в сервисах.
+ *
+ * Снимок накладывается поверх текущих данных, а не после очистки: до SNAPSHOT_END реплика отдаёт
+ * прежнее состояние вперемешку с уже полученным, затем удаляет сущности, которых в снимке не было.
+ * Если у сущности из снимка поменялась степень, статистика поправляется напрямую, а публикуется UPDATE.
+ * События реплики помечены replicated: каскады удаления ведущий узел уже записал в журнал, и сервисы
+ * реплики их не повторяют.
+ */
+@Component
+@ConditionalOnProperty(name = "filmorate.replication.role", havingValue = "follower")
+@Slf4j
+public class ReplicationFollower {
+    private final FilmStorage filmStorage;
+    private final UserStorage userStorage;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EntityLocks entityLocks;
+    private final StatisticsService statisticsService;
+    private final String leaderHost;
+    private final int leaderPort;
+    private final long reconnectMillis;
+    private final Object appliedMonitor = new Object();
+    private volatile long epoch;
+    private volatile long appliedSeq;
+    private volatile long appliedTimestamp;
+    private volatile long leaderSeq;
+    private volatile boolean connected;
+    private volatile boolean running = true;
+    private volatile Socket socket;
+    private volatile SnapshotIds snapshot;
+    private Thread worker;
+
+    public ReplicationFollower(FilmStorage filmStorage, UserStorage userStorage, ObjectMapper objectMapper,
+                               ApplicationEventPublisher eventPublisher, EntityLocks entityLocks,
+                               StatisticsService statisticsService, MeterRegistry meterRegistry,
+                               @Value("${filmorate.replication.leader-host:127.0.0.1}") String leaderHost,
+                               @Value("${filmorate.replication.leader-port:7070}") int leaderPort,
+                               @Value("${filmorate.replication.reconnect-ms:1000}") long reconnectMillis) {
+        this.filmStorage = filmStorage;
+        this.userStorage = userStorage;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.entityLocks = entityLocks;
+        this.statisticsService = statisticsService;
+        this.leaderHost = leaderHost;
+        this.leaderPort = leaderPort;
+        this.reconnectMillis = reconnectMillis;
+        Gauge.builder("filmorate.replication.applied", this, ReplicationFollower::getAppliedSeq)
+                .description("Номер последней применённой мутации")
+                .register(meterRegistry);
+        Gauge.builder("filmorate.replication.lag.mutations", this, ReplicationFollower::getLagMutations)
+                .description("Отставание реплики от ведущего узла в мутациях")
+                .register(meterRegistry);
+        Gauge.builder("filmorate.replication.lag", this, ReplicationFollower::getLagMillis)
+                .description("Возраст последней применённой мутации, пока реплика отстаёт")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        worker = new Thread(this::run, "replication-follower");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        closeSocket();
+        worker.interrupt();
+    }
+
+    public long getAppliedSeq() {
+        return appliedSeq;
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    public long getLeaderSeq() {
+        return leaderSeq;
+    }
+
+    public boolean isConnected() {
+        return connected;
+    }
+
+    public boolean isSnapshotInProgress() {
+        return snapshot != null;
+    }
+
+    public long getLagMutations() {
+        return Math.max(0, leaderSeq - appliedSeq);
+    }
+
+    public long getLagMillis() {
+        return getLagMutations() == 0 ? 0 : System.currentTimeMillis() - appliedTimestamp;
+    }
+
+    // Ждёт, пока реплика применит мутацию seq; false, если за timeoutMillis не дождались
+    // Токен из другой эпохи: если ведущий узел с тех пор перезапустился, запись уже вошла в снимок новой эпохи
+    // (или потеряна вместе с журналом), и ждать нужно только окончания снимка; если реплика ещё не видела
+    // эпоху токена, ждём переключения на неё
+    public boolean awaitApplied(long tokenEpoch, long seq, long timeoutMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        synchronized (appliedMonitor) {
+            while (epoch > tokenEpoch ? appliedSeq == 0 : (epoch < tokenEpoch || appliedSeq < seq)) {
+                long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remaining <= 0) {
+                    return false;
+                }
+                appliedMonitor.wait(remaining);
+            }
+        }
+        return true;
+    }
+
+    public String getToken() {
+        synchronized (appliedMonitor) {
+            return epoch + ":" + appliedSeq;
+        }
+    }
+
+    private void run() {
+        while (running) {
+            try (Socket connection = new Socket()) {
+                socket = connection;
+                connection.connect(new InetSocketAddress(leaderHost, leaderPort));
+                OutputStream out = connection.getOutputStream();
+                out.write((epoch + " " + appliedSeq + "\n").getBytes(StandardCharsets.UTF_8));
+                out.flush();
+                connected = true;
+                log.info("Реплика подключилась к {}:{}, последняя применённая мутация {}",
+                        leaderHost, leaderPort, appliedSeq);
+                BufferedReader reader = new BufferedReader(
+                        new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8));
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    int separator = line.indexOf(' ');
+                    Mutation mutation = objectMapper.readValue(line.substring(separator + 1), Mutation.class);
+                    mutation.setSeq(Long.parseLong(line.substring(0, separator)));
+                    apply(mutation);
+                }
+            } catch (IOException | RuntimeException e) {
+                if (running) {
+                    log.warn("Потеряно соединение с ведущим узлом {}:{}: {}", leaderHost, leaderPort, e.getMessage());
+                }
+            } finally {
+                connected = false;
+            }
+            try {
+                Thread.sleep(reconnectMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void apply(Mutation mutation) {
+        switch (mutation.getType()) {
+            case RESET -> {
+                // Журнал ведущего узла не покрывает нашу позицию - ждём снимок, старые данные пока отдаём
+                snapshot = new SnapshotIds();
+                synchronized (appliedMonitor) {
+                    epoch = mutation.getEpoch();
+                    appliedSeq = 0;
+                    leaderSeq = mutation.getSeq();
+                }
+            }
+            case HEARTBEAT -> leaderSeq = Math.max(leaderSeq, mutation.getSeq());
+            case SNAPSHOT_END -> {
+                removeMissingFromSnapshot();
+                markApplied(mutation);
+            }
+            case PUT -> entityLocks.run(mutation.getEntity(), mutation.getId(), () -> put(mutation));
+            case DELETE -> entityLocks.run(mutation.getEntity(), mutation.getId(), () -> delete(mutation));
+            case LIKE, UNLIKE -> entityLocks.run(EntityType.FILM, mutation.getId(), () -> like(mutation));
+            case FRIEND_ADD, FRIEND_REMOVE ->
+                    entityLocks.run(EntityType.USER, mutation.getId(), mutation.getRelatedId(), () -> friend(mutation));
+        }
+        // Записи снимка идут с seq = 0 и сдвигают позицию реплики только вместе с SNAPSHOT_END.
+        // Событие публикуется до сдвига позиции, чтобы читатель с токеном не застал несброшенный рейтинг
+        if (mutation.getSeq() > 0 && mutation.getEntity() != null) {
+            markApplied(mutation);
+        }
+    }
+
+    private void put(Mutation mutation) {
+        Optional<Integer> previous;
+        int degree;
+        if (mutation.getEntity() == EntityType.FILM) {
+            previous = filmStorage.findById(mutation.getId()).map(film -> film.getLikes().size());
+            degree = filmStorage.save(mutation.getFilm()).getLikes().size();
+        } else {
+            previous = userStorage.findById(mutation.getId()).map(user -> user.getFriends().size());
+            degree = userStorage.save(mutation.getUser()).getFriends().size();
+        }
+        SnapshotIds current = snapshot;
+        if (mutation.getSeq() == 0 && current != null) {
+            current.add(mutation.getEntity(), mutation.getId());
+        }
+        if (previous.isEmpty()) {
+            publish(mutation, EventType.CREATE, degree, null);
+        } else {
+            statisticsService.adjust(mutation.getEntity(), mutation.getId(), previous.get(), degree);
+            publish(mutation, EventType.UPDATE, degree, null);
+        }
+    }
+
+    private void delete(Mutation mutation) {
+        Optional<Integer> degree;
+        if (mutation.getEntity() == EntityType.FILM) {
+            degree = filmStorage.findById(mutation.getId()).map(film -> film.getLikes().size());
+            filmStorage.delete(mutation.getId());
+        } else {
+            degree = userStorage.findById(mutation.getId()).map(user -> user.getFriends().size());
+            userStorage.delete(mutation.getId());
+        }
+        degree.ifPresent(value -> publish(mutation, EventType.DELETE, value, null));
+    }
+
+    private void like(Mutation mutation) {
+        boolean like = mutation.getType() == MutationType.LIKE;
+        filmStorage.findById(mutation.getId()).ifPresent(film -> {
+            if (changeSet(film.getLikes(), mutation.getRelatedId(), like)) {
+                filmStorage.save(film);
+                publish(mutation, like ? EventType.LIKE : EventType.UNLIKE, film.getLikes().size(), null);
+            }
+        });
+    }
+
+    // Друг может быть уже удалён (каскад удаления пользователя): меняется только существующая сторона
+    private void friend(Mutation mutation) {
+        boolean add = mutation.getType() == MutationType.FRIEND_ADD;
+        User user = userStorage.findById(mutation.getId()).orElse(null);
+        User friend = userStorage.findById(mutation.getRelatedId()).orElse(null);
+        Integer userDegree = user != null && changeSet(user.getFriends(), mutation.getRelatedId(), add)
+                ? userStorage.save(user).getFriends().size() : null;
+        Integer friendDegree = friend != null && changeSet(friend.getFriends(), mutation.getId(), add)
+                ? userStorage.save(friend).getFriends().size() : null;
+        if (userDegree != null || friendDegree != null) {
+            publish(mutation, add ? EventType.FRIEND_ADD : EventType.FRIEND_REMOVE, userDegree, friendDegree);
+        }
+    }
+
+    private static boolean changeSet(Set<Long> ids, Long id, boolean add) {
+        return add ? ids.add(id) : ids.remove(id);
+    }
+
+    // Сущности, которых нет в снимке, удалены на ведущем узле, пока реплика отставала
+    private void removeMissingFromSnapshot() {
+        SnapshotIds received = snapshot;
+        if (received == null) {
+            return;
+        }
+        List<Mutation> missing = new ArrayList<>();
+        filmStorage.forEachId(id -> {
+            if (!received.contains(EntityType.FILM, id)) {
+                missing.add(deletion(EntityType.FILM, id));
+            }
+        });
+        userStorage.forEachId(id -> {
+            if (!received.contains(EntityType.USER, id)) {
+                missing.add(deletion(EntityType.USER, id));
+            }
+        });
+        missing.forEach(mutation -> entityLocks.run(mutation.getEntity(), mutation.getId(), () -> delete(mutation)));
+        snapshot = null;
+        log.info("Снимок применён, удалено отсутствующих в нём сущностей: {}", missing.size());
+    }
+
+    private static Mutation deletion(EntityType entity, long id) {
+        Mutation mutation = new Mutation(MutationType.DELETE, 0);
+        mutation.setEntity(entity);
+        mutation.setId(id);
+        return mutation;
+    }
+
+    private void publish(Mutation mutation, EventType type, Integer degree, Integer relatedDegree) {
+        Event event = new Event(mutation.getEntity(), type, mutation.getId(), mutation.getRelatedId(),
+                degree, relatedDegree);
+        event.setReplicated(true);
+        eventPublisher.publishEvent(event);
+    }
+
+    private void markApplied(Mutation mutation) {
+        synchronized (appliedMonitor) {
+            appliedSeq = mutation.getSeq();
+            appliedTimestamp = mutation.getTimestamp();
+            leaderSeq = Math.max(leaderSeq, appliedSeq);
+            appliedMonitor.notifyAll();
+        }
+    }
+
+    private void closeSocket() {
+        Socket current = socket;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException ignored) {
+                // соединение уже закрыто
+            }
+        }
+    }
+
+    // Id сущностей, пришедших в снимке; id выдаются подряд с единицы, поэтому хватает битовой карты
+    private static class SnapshotIds {
+        private final BitSet films = new BitSet();
+        private final BitSet users = new BitSet();
+
+        void add(EntityType entity, long id) {
+            (entity == EntityType.FILM ? films : users).set(Math.toIntExact(id));
+        }
+
+        boolean contains(EntityType entity, long id) {
+            return (entity == EntityType.FILM ? films : users).get(Math.toIntExact(id));
+        }
+    }
+}
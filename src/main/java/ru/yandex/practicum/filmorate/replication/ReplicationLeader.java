@@ -0,0 +1,262 @@
+package ru.yandex.practicum.filmorate.replication;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import ru.yandex.practicum.filmorate.model.EntityType;
+import ru.yandex.practicum.filmorate.model.Event;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Ведущий узел: каждое событие сервисов превращается в мутацию и попадает в журнал. Создание и
+ * изменение сущности несут её текущее состояние, лайки и дружба - только изменение. Реплики подключаются по TCP, присылают "эпоха номер" последней
+ * применённой мутации и получают либо продолжение журнала, либо полный снимок, если продолжить нельзя.
+ */
+@Component
+@ConditionalOnProperty(name = "filmorate.replication.role", havingValue = "leader")
+@Slf4j
+public class ReplicationLeader {
+    public static final String SEQ_HEADER = "X-Replication-Seq";
+
+    private final FilmStorage filmStorage;
+    private final UserStorage userStorage;
+    private final ObjectMapper objectMapper;
+    private final MutationLog mutationLog;
+    private final String bindAddress;
+    private final int port;
+    private final int batchSize;
+    private final long heartbeatMillis;
+    private final long epoch = System.currentTimeMillis();
+    private final Set<Session> sessions = ConcurrentHashMap.newKeySet();
+    private volatile ServerSocket serverSocket;
+
+    public ReplicationLeader(FilmStorage filmStorage, UserStorage userStorage, ObjectMapper objectMapper,
+                             MeterRegistry meterRegistry,
+                             @Value("${filmorate.replication.bind-address:127.0.0.1}") String bindAddress,
+                             @Value("${filmorate.replication.port:7070}") int port,
+                             @Value("${filmorate.replication.log-capacity:100000}") int logCapacity,
+                             @Value("${filmorate.replication.batch-size:512}") int batchSize,
+                             @Value("${filmorate.replication.heartbeat-ms:1000}") long heartbeatMillis) {
+        this.filmStorage = filmStorage;
+        this.userStorage = userStorage;
+        this.objectMapper = objectMapper;
+        this.mutationLog = new MutationLog(logCapacity);
+        this.bindAddress = bindAddress;
+        this.port = port;
+        this.batchSize = batchSize;
+        this.heartbeatMillis = heartbeatMillis;
+        Gauge.builder("filmorate.replication.head", mutationLog, MutationLog::head)
+                .description("Номер последней мутации в журнале ведущего узла")
+                .register(meterRegistry);
+        Gauge.builder("filmorate.replication.followers", sessions, Set::size)
+                .description("Количество подключённых реплик")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        serverSocket = new ServerSocket(port, 50, InetAddress.getByName(bindAddress));
+        Thread acceptor = new Thread(this::accept, "replication-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        log.info("Ведущий узел репликации слушает {}:{}", bindAddress, getPort());
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException {
+        serverSocket.close();
+        sessions.forEach(Session::close);
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    public long getHeadSeq() {
+        return mutationLog.head();
+    }
+
+    public int getFollowerCount() {
+        return sessions.size();
+    }
+
+    // Вызывается в потоке запроса, поэтому "эпоха:номер" мутации можно сразу вернуть клиенту как токен чтения.
+    // При отложенной записи лайков событие публикует поток очереди уже после ответа, и токена в ответе нет.
+    // Сервисы публикуют события под блокировкой сущности, так что мутации одной сущности попадают
+    // в журнал в порядке изменений, а кодирование идёт вне монитора журнала
+    @EventListener
+    public void onEvent(Event event) {
+        long seq = mutationLog.append(encode(mutationOf(event)));
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes
+                && attributes.getResponse() != null) {
+            attributes.getResponse().setHeader(SEQ_HEADER, epoch + ":" + seq);
+        }
+    }
+
+    private Mutation mutationOf(Event event) {
+        Mutation mutation = new Mutation(switch (event.getType()) {
+            case CREATE, UPDATE -> MutationType.PUT;
+            case DELETE -> MutationType.DELETE;
+            case LIKE -> MutationType.LIKE;
+            case UNLIKE -> MutationType.UNLIKE;
+            case FRIEND_ADD -> MutationType.FRIEND_ADD;
+            case FRIEND_REMOVE -> MutationType.FRIEND_REMOVE;
+        }, 0);
+        mutation.setEntity(event.getEntity());
+        mutation.setId(event.getEntityId());
+        if (mutation.getType() == MutationType.PUT) {
+            if (event.getEntity() == EntityType.FILM) {
+                filmStorage.findById(event.getEntityId())
+                        .ifPresentOrElse(mutation::setFilm, () -> mutation.setType(MutationType.DELETE));
+            } else {
+                userStorage.findById(event.getEntityId())
+                        .ifPresentOrElse(mutation::setUser, () -> mutation.setType(MutationType.DELETE));
+            }
+        } else if (mutation.getType() != MutationType.DELETE) {
+            mutation.setRelatedId(event.getRelatedId());
+        }
+        return mutation;
+    }
+
+    private Mutation control(MutationType type, long seq) {
+        Mutation mutation = new Mutation(type, seq);
+        mutation.setEpoch(epoch);
+        return mutation;
+    }
+
+    private String encode(Mutation mutation) {
+        try {
+            return objectMapper.writeValueAsString(mutation);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Session session = new Session(serverSocket.accept());
+                sessions.add(session);
+                Thread thread = new Thread(session::run, "replication-session-" + session.socket.getPort());
+                thread.setDaemon(true);
+                thread.start();
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    log.warn("Ошибка при подключении реплики: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private class Session {
+        private final Socket socket;
+
+        Session(Socket socket) {
+            this.socket = socket;
+        }
+
+        void run() {
+            String remote = socket.getRemoteSocketAddress().toString();
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+                 Writer writer = new BufferedWriter(
+                         new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+                String[] handshake = String.valueOf(reader.readLine()).trim().split(" ");
+                long cursor = handshake.length == 2 && Long.parseLong(handshake[0]) == epoch
+                        ? Long.parseLong(handshake[1]) : -1;
+                log.info("Подключилась реплика {}, последняя применённая мутация {}", remote, cursor);
+                while (!socket.isClosed()) {
+                    List<String> batch = cursor < 0 ? null : mutationLog.readAfter(cursor, batchSize, heartbeatMillis);
+                    if (batch == null) {
+                        cursor = sendSnapshot(writer);
+                    } else if (batch.isEmpty()) {
+                        long head = mutationLog.head();
+                        writeLine(writer, head, encode(control(MutationType.HEARTBEAT, head)));
+                    } else {
+                        for (String line : batch) {
+                            writeLine(writer, ++cursor, line);
+                        }
+                    }
+                    writer.flush();
+                }
+            } catch (IOException | RuntimeException e) {
+                log.info("Реплика {} отключилась: {}", remote, e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                close();
+            }
+        }
+
+        // Мутации, появившиеся во время снимка, придут следом и перезапишут прочитанное состояние
+        private long sendSnapshot(Writer writer) throws IOException {
+            long snapshotSeq = mutationLog.head();
+            writeLine(writer, snapshotSeq, encode(control(MutationType.RESET, snapshotSeq)));
+            for (User user : userStorage.findAll()) {
+                Mutation mutation = new Mutation(MutationType.PUT, 0);
+                mutation.setEntity(EntityType.USER);
+                mutation.setId(user.getId());
+                mutation.setUser(user);
+                writeLine(writer, 0, encode(mutation));
+            }
+            for (Film film : filmStorage.findAll()) {
+                Mutation mutation = new Mutation(MutationType.PUT, 0);
+                mutation.setEntity(EntityType.FILM);
+                mutation.setId(film.getId());
+                mutation.setFilm(film);
+                writeLine(writer, 0, encode(mutation));
+            }
+            writeLine(writer, snapshotSeq, encode(control(MutationType.SNAPSHOT_END, snapshotSeq)));
+            log.info("Реплике {} отправлен снимок на мутацию {}", socket.getRemoteSocketAddress(), snapshotSeq);
+            return snapshotSeq;
+        }
+
+        private void writeLine(Writer writer, long seq, String line) throws IOException {
+            writer.write(Long.toString(seq));
+            writer.write(' ');
+            writer.write(line);
+            writer.write('\n');
+        }
+
+        void close() {
+            sessions.remove(this);
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // соединение уже закрыто
+            }
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package ru.yandex.practicum.filmorate.serialization;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Выборка полей по ?fields=id,name,likeCount. Запрошенный набор сводится к битовой маске, и для каждой маски
+ * один раз собирается писатель с заранее закодированными именами полей. Поля пишутся в порядке объявления,
+ * поэтому name,id и id,name используют один писатель. Писатель вызывает только геттеры запрошенных полей,
+ * а счётчики likeCount и friendCount берут размер множества, не обходя его.
+ */
+public final class FieldProjection<T> {
+    public static final FieldProjection<Film> FILM = new FieldProjection<Film>("фильма")
+            .field("id", (film, gen, provider) -> writeLong(film.getId(), gen))
+            .field("name", (film, gen, provider) -> gen.writeString(film.getName()))
+            .field("description", (film, gen, provider) -> gen.writeString(film.getDescription()))
+            .field("releaseDate", (film, gen, provider) -> provider.defaultSerializeValue(film.getReleaseDate(), gen))
+            .field("duration", (film, gen, provider) -> writeLong(film.getDuration() == null ? null
+                    : film.getDuration().longValue(), gen))
+            .field("likes", (film, gen, provider) -> writeIdSet(film.getLikes(), gen))
+            .field("likeCount", (film, gen, provider) -> gen.writeNumber(size(film.getLikes())));
+
+    public static final FieldProjection<User> USER = new FieldProjection<User>("пользователя")
+            .field("id", (user, gen, provider) -> writeLong(user.getId(), gen))
+            .field("login", (user, gen, provider) -> gen.writeString(user.getLogin()))
+            .field("email", (user, gen, provider) -> gen.writeString(user.getEmail()))
+            .field("name", (user, gen, provider) -> gen.writeString(user.getName()))
+            .field("birthday", (user, gen, provider) -> provider.defaultSerializeValue(user.getBirthday(), gen))
+            .field("friends", (user, gen, provider) -> writeIdSet(user.getFriends(), gen))
+            .field("friendCount", (user, gen, provider) -> gen.writeNumber(size(user.getFriends())));
+
+    private final String entityName;
+    private final List<SerializedString> names = new ArrayList<>();
+    private final List<ValueWriter<T>> values = new ArrayList<>();
+    private final Map<String, Integer> indexes = new LinkedHashMap<>();
+    private final Map<Long, Writer<T>> writers = new ConcurrentHashMap<>();
+
+    private FieldProjection(String entityName) {
+        this.entityName = entityName;
+    }
+
+    private FieldProjection<T> field(String name, ValueWriter<T> value) {
+        indexes.put(name, names.size());
+        names.add(new SerializedString(name));
+        values.add(value);
+        return this;
+    }
+
+    public Writer<T> writer(String fields) {
+        return writers.computeIfAbsent(parse(fields), this::compile);
+    }
+
+    public int compiledWriters() {
+        return writers.size();
+    }
+
+    private long parse(String fields) {
+        long mask = 0;
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            Integer index = indexes.get(name);
+            if (index == null) {
+                throw new ValidationException("Неизвестное поле " + entityName + " '" + name + "', доступны: "
+                        + String.join(",", indexes.keySet()));
+            }
+            mask |= 1L << index;
+        }
+        if (mask == 0) {
+            throw new ValidationException("Параметр fields должен содержать хотя бы одно поле");
+        }
+        return mask;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Writer<T> compile(long mask) {
+        int count = Long.bitCount(mask);
+        SerializedString[] selectedNames = new SerializedString[count];
+        ValueWriter<T>[] selectedValues = new ValueWriter[count];
+        int i = 0;
+        for (int index = 0; index < names.size(); index++) {
+            if ((mask & (1L << index)) != 0) {
+                selectedNames[i] = names.get(index);
+                selectedValues[i++] = values.get(index);
+            }
+        }
+        return new Writer<>(selectedNames, selectedValues);
+    }
+
+    private static void writeLong(Long value, JsonGenerator gen) throws IOException {
+        if (value == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(value);
+        }
+    }
+
+    private static void writeIdSet(Set<Long> ids, JsonGenerator gen) throws IOException {
+        if (ids == null) {
+            gen.writeNull();
+            return;
+        }
+        gen.writeStartArray(ids, ids.size());
+        for (Long id : ids) {
+            gen.writeNumber(id);
+        }
+        gen.writeEndArray();
+    }
+
+    private static int size(Set<Long> ids) {
+        return ids == null ? 0 : ids.size();
+    }
+
+    @FunctionalInterface
+    private interface ValueWriter<T> {
+        void write(T entity, JsonGenerator gen, SerializerProvider provider) throws IOException;
+    }
+
+    public static final class Writer<T> {
+        private final SerializedString[] names;
+        private final ValueWriter<T>[] values;
+
+        private Writer(SerializedString[] names, ValueWriter<T>[] values) {
+            this.names = names;
+            this.values = values;
+        }
+
+        public void write(T entity, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            if (entity == null) {
+                gen.writeNull();
+                return;
+            }
+            gen.writeStartObject(entity);
+            for (int i = 0; i < names.length; i++) {
+                gen.writeFieldName(names[i]);
+                values[i].write(entity, gen, provider);
+            }
+            gen.writeEndObject();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package ru.yandex.practicum.filmorate.serialization;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.util.Collection;
+
+// Применяет ?fields= к ответам GET с фильмами и пользователями; varint-формат по-прежнему отдаёт сущности целиком.
+// Ответы на изменения не проецируются: к этому моменту запись уже выполнена и ошибку в fields не вернуть
+@RestControllerAdvice
+public class FieldProjectionAdvice implements ResponseBodyAdvice<Object> {
+    public static final String PARAMETER = "fields";
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return AbstractJackson2HttpMessageConverter.class.isAssignableFrom(converterType);
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (body == null || request.getMethod() != HttpMethod.GET
+                || !(request instanceof ServletServerHttpRequest servletRequest)) {
+            return body;
+        }
+        String fields = servletRequest.getServletRequest().getParameter(PARAMETER);
+        if (fields == null) {
+            return body;
+        }
+        FieldProjection<?> projection = projection(returnType);
+        return projection == null ? body : new ProjectedBody<>(body, projection.writer(fields));
+    }
+
+    // Тип берётся из сигнатуры метода, поэтому ошибка в fields видна и на пустом списке
+    private static FieldProjection<?> projection(MethodParameter returnType) {
+        ResolvableType type = ResolvableType.forMethodParameter(returnType);
+        if (Collection.class.isAssignableFrom(type.toClass())) {
+            type = type.asCollection().getGeneric(0);
+        }
+        Class<?> entityType = type.toClass();
+        if (Film.class.isAssignableFrom(entityType)) {
+            return FieldProjection.FILM;
+        }
+        if (User.class.isAssignableFrom(entityType)) {
+            return FieldProjection.USER;
+        }
+        return null;
+    }
+}
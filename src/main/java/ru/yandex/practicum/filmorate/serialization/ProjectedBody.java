@@ -0,0 +1,40 @@
+package ru.yandex.practicum.filmorate.serialization;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+
+import java.io.IOException;
+import java.util.Collection;
+
+// Тело ответа с выборкой полей: сущность или коллекция сущностей, которые пишет скомпилированный писатель
+public final class ProjectedBody<T> implements JsonSerializable {
+    private final Object body;
+    private final FieldProjection.Writer<T> writer;
+
+    public ProjectedBody(Object body, FieldProjection.Writer<T> writer) {
+        this.body = body;
+        this.writer = writer;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        if (body instanceof Collection<?> collection) {
+            gen.writeStartArray(collection, collection.size());
+            for (Object element : collection) {
+                writer.write((T) element, gen, serializers);
+            }
+            gen.writeEndArray();
+        } else {
+            writer.write((T) body, gen, serializers);
+        }
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator gen, SerializerProvider serializers, TypeSerializer typeSer)
+            throws IOException {
+        serialize(gen, serializers);
+    }
+}
@@ -0,0 +1,101 @@
+package ru.yandex.practicum.filmorate.serialization;
+
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.List;
+
+// Только на запись: фильм, пользователь или их список, список - varint-длина и элементы подряд. Тип проверяется
+// по сигнатуре метода, поэтому на остальные ответы (в том числе тела ошибок) Spring отвечает 406
+public class VarintHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+    public static final MediaType MEDIA_TYPE = MediaType.parseMediaType("application/x-filmorate-varint");
+
+    public VarintHttpMessageConverter() {
+        super(MEDIA_TYPE);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return isEntity(clazz);
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        if (!canWrite(mediaType)) {
+            return false;
+        }
+        ResolvableType resolved = type != null ? ResolvableType.forType(type) : ResolvableType.forClass(clazz);
+        if (Collection.class.isAssignableFrom(resolved.toClass())) {
+            return isEntity(resolved.asCollection().getGeneric(0).toClass());
+        }
+        return isEntity(resolved.toClass());
+    }
+
+    // Spring собирает доступные форматы по классу значения (ArrayList), а не по сигнатуре метода, поэтому
+    // формат объявляется для любого класса, а отбор идёт в canWrite по полному типу
+    @Override
+    public List<MediaType> getSupportedMediaTypes(Class<?> clazz) {
+        return getSupportedMediaTypes();
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Формат " + MEDIA_TYPE + " поддерживается только для ответов",
+                inputMessage);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        return read(clazz, null, inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(Object body, Type type, HttpOutputMessage outputMessage) throws IOException {
+        VarintWriter out = new VarintWriter(256);
+        if (body instanceof Collection<?> collection) {
+            out.writeVarint(collection.size());
+            for (Object element : collection) {
+                writeEntity(element, out);
+            }
+        } else {
+            writeEntity(body, out);
+        }
+        outputMessage.getHeaders().setContentLength(out.size());
+        out.writeTo(outputMessage.getBody());
+    }
+
+    private static boolean isEntity(Class<?> clazz) {
+        return Film.class.isAssignableFrom(clazz) || User.class.isAssignableFrom(clazz);
+    }
+
+    private static void writeEntity(Object entity, VarintWriter out) {
+        if (entity instanceof Film film) {
+            out.writeFilm(film);
+        } else if (entity instanceof User user) {
+            out.writeUser(user);
+        } else {
+            throw new HttpMessageNotWritableException("Тип " + entity.getClass().getSimpleName()
+                    + " не поддерживается форматом " + MEDIA_TYPE);
+        }
+    }
+}
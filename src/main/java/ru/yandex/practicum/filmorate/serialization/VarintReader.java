@@ -0,0 +1,113 @@
+package ru.yandex.practicum.filmorate.serialization;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Обратная сторона VarintWriter: читает тот же формат из массива байт, для клиентов на Java и тестов
+public final class VarintReader {
+    private final byte[] buffer;
+    private int position;
+
+    public VarintReader(byte[] buffer) {
+        this.buffer = buffer;
+    }
+
+    public Film readFilm() {
+        Film film = new Film();
+        film.setId(readNullableLong());
+        film.setName(readString());
+        film.setDescription(readString());
+        film.setReleaseDate(readDate());
+        Long duration = readNullableLong();
+        film.setDuration(duration == null ? null : duration.intValue());
+        film.setLikes(readIdSet());
+        return film;
+    }
+
+    public User readUser() {
+        User user = new User();
+        user.setId(readNullableLong());
+        user.setLogin(readString());
+        user.setEmail(readString());
+        user.setName(readString());
+        user.setBirthday(readDate());
+        user.setFriends(readIdSet());
+        return user;
+    }
+
+    public List<Film> readFilms() {
+        int count = (int) readVarint();
+        List<Film> films = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            films.add(readFilm());
+        }
+        return films;
+    }
+
+    public List<User> readUsers() {
+        int count = (int) readVarint();
+        List<User> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            users.add(readUser());
+        }
+        return users;
+    }
+
+    public Set<Long> readIdSet() {
+        int count = (int) readVarint();
+        Set<Long> ids = new HashSet<>(count * 2);
+        long previous = 0;
+        for (int i = 0; i < count; i++) {
+            previous += readVarint();
+            ids.add(previous);
+        }
+        return ids;
+    }
+
+    public String readString() {
+        long length = readVarint();
+        if (length == 0) {
+            return null;
+        }
+        int size = (int) (length - 1);
+        String value = new String(buffer, position, size, StandardCharsets.UTF_8);
+        position += size;
+        return value;
+    }
+
+    public long readVarint() {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = buffer[position++];
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+
+    public boolean hasRemaining() {
+        return position < buffer.length;
+    }
+
+    private Long readNullableLong() {
+        long value = readVarint();
+        return value == 0 ? null : unZigZag(value - 1);
+    }
+
+    private LocalDate readDate() {
+        Long epochDay = readNullableLong();
+        return epochDay == null ? null : LocalDate.ofEpochDay(epochDay);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,119 @@
+package ru.yandex.practicum.filmorate.serialization;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Set;
+
+/*
+ * Компактный бинарный формат: числа - varint, списки id отсортированы и записаны разностями,
+ * поэтому плотные множества лайков и друзей занимают около байта на элемент. Разности неотрицательны
+ * и пишутся как беззнаковый varint; знаковые поля (id, длительность, дата) - через zig-zag.
+ * Nullable-значения сдвинуты на единицу: 0 означает null. Чтение - VarintReader.
+ */
+public final class VarintWriter {
+    private byte[] buffer;
+    private int size;
+    private long[] ids = new long[16];
+
+    public VarintWriter(int initialCapacity) {
+        this.buffer = new byte[Math.max(16, initialCapacity)];
+    }
+
+    public void writeFilm(Film film) {
+        writeNullableLong(film.getId());
+        writeString(film.getName());
+        writeString(film.getDescription());
+        writeDate(film.getReleaseDate());
+        writeNullableLong(film.getDuration() == null ? null : film.getDuration().longValue());
+        writeIdSet(film.getLikes());
+    }
+
+    public void writeUser(User user) {
+        writeNullableLong(user.getId());
+        writeString(user.getLogin());
+        writeString(user.getEmail());
+        writeString(user.getName());
+        writeDate(user.getBirthday());
+        writeIdSet(user.getFriends());
+    }
+
+    public void writeIdSet(Set<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            writeVarint(0);
+            return;
+        }
+        int count = ids.size();
+        if (this.ids.length < count) {
+            this.ids = new long[Math.max(count, this.ids.length * 2)];
+        }
+        long[] sorted = this.ids;
+        int i = 0;
+        for (Long id : ids) {
+            sorted[i++] = id;
+        }
+        Arrays.sort(sorted, 0, count);
+        writeVarint(count);
+        long previous = 0;
+        for (i = 0; i < count; i++) {
+            writeVarint(sorted[i] - previous);
+            previous = sorted[i];
+        }
+    }
+
+    public void writeString(String value) {
+        if (value == null) {
+            writeVarint(0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(bytes.length + 1L);
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, size, bytes.length);
+        size += bytes.length;
+    }
+
+    public void writeVarint(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[size++] = (byte) value;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, size);
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(buffer, 0, size);
+    }
+
+    private void writeNullableLong(Long value) {
+        writeVarint(value == null ? 0 : zigZag(value) + 1);
+    }
+
+    private void writeDate(LocalDate date) {
+        writeNullableLong(date == null ? null : date.toEpochDay());
+    }
+
+    private void ensureCapacity(int extra) {
+        if (size + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+        }
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+}
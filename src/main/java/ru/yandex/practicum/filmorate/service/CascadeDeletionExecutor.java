@@ -0,0 +1,70 @@
+package ru.yandex.practicum.filmorate.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+// Каскадное удаление связей: небольшие выполняются сразу, большие - в фоне пачками
+@Component
+@Slf4j
+public class CascadeDeletionExecutor {
+    private final int asyncThreshold;
+    private final int batchSize;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "cascade-deletion");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public CascadeDeletionExecutor(@Value("${filmorate.delete.async-threshold:1000}") int asyncThreshold,
+                                   @Value("${filmorate.delete.batch-size:500}") int batchSize) {
+        this.asyncThreshold = asyncThreshold;
+        this.batchSize = batchSize;
+    }
+
+    public void run(String description, Collection<Long> ids, Consumer<Long> action) {
+        if (ids.size() <= asyncThreshold) {
+            apply(description, ids, action);
+            return;
+        }
+        List<Long> pending = new ArrayList<>(ids);
+        log.info("Каскадное удаление {} запущено в фоне, связей: {}", description, pending.size());
+        for (int from = 0; from < pending.size(); from += batchSize) {
+            List<Long> batch = pending.subList(from, Math.min(from + batchSize, pending.size()));
+            executor.execute(() -> apply(description, batch, action));
+        }
+    }
+
+    // Ошибка на одной связи не прерывает остальные; id, которые не удалось обработать, попадают в лог
+    private void apply(String description, Collection<Long> ids, Consumer<Long> action) {
+        List<Long> failed = new ArrayList<>();
+        RuntimeException first = null;
+        for (Long id : ids) {
+            try {
+                action.accept(id);
+            } catch (RuntimeException e) {
+                failed.add(id);
+                if (first == null) {
+                    first = e;
+                }
+            }
+        }
+        if (first != null) {
+            log.error("Ошибка каскадного удаления {}, не обработаны ID={}: {}", description, failed,
+                    first.getMessage(), first);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
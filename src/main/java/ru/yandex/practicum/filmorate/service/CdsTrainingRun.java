@@ -0,0 +1,102 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+/*
+ * Тренировочный запуск для архива AppCDS (профиль fast-start). Срабатывает после прогрева и перехода
+ * в ACCEPTING_TRAFFIC: прогоняет через собственный HTTP-порт сценарий из типичных запросов, чтобы
+ * в архив попали классы Tomcat, диспетчера, конвертеров и обработчика ошибок, а затем завершает JVM.
+ * Бин безусловный по той же причине, что и StartupWarmup: при AOT-сборке условия фиксируются.
+ */
+@Component
+@Slf4j
+public class CdsTrainingRun {
+    private static final String JSON = "application/json";
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+
+    public CdsTrainingRun(ObjectMapper objectMapper, @Value("${filmorate.cds.training:false}") boolean enabled) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+    }
+
+    @EventListener
+    public void onReady(ApplicationReadyEvent event) {
+        if (!enabled) {
+            return;
+        }
+        ConfigurableApplicationContext context = event.getApplicationContext();
+        int exitCode = 0;
+        try {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            runScript("http://localhost:" + port);
+            log.info("Тренировочный запуск AppCDS завершён");
+        } catch (Exception e) {
+            log.error("Тренировочный запуск AppCDS не выполнен: {}", e.getMessage(), e);
+            exitCode = 1;
+        }
+        int code = exitCode;
+        System.exit(SpringApplication.exit(context, () -> code));
+    }
+
+    private void runScript(String base) throws Exception {
+        HttpClient client = HttpClient.newBuilder().connectTimeout(TIMEOUT).build();
+        String user = """
+                {"login":"training","email":"training@mail.ru","name":"Тренировка","birthday":"2000-01-01"}""";
+        String friend = """
+                {"login":"friend","email":"friend@mail.ru","birthday":"2000-01-01"}""";
+        String film = """
+                {"name":"Тренировка","description":"Тренировка","releaseDate":"2000-01-01","duration":100}""";
+        long userId = id(send(client, "POST", base + "/users", user, JSON, 200));
+        long friendId = id(send(client, "POST", base + "/users", friend, JSON, 200));
+        long filmId = id(send(client, "POST", base + "/films", film, JSON, 200));
+        send(client, "PUT", base + "/users/" + userId + "/friends/" + friendId, null, JSON, 200);
+        send(client, "PUT", base + "/films/" + filmId + "/like/" + userId, null, JSON, 200);
+        send(client, "GET", base + "/films/" + filmId, null, JSON, 200);
+        send(client, "GET", base + "/films/popular?count=10", null, JSON, 200);
+        send(client, "GET", base + "/films?fields=id,name", null, JSON, 200);
+        send(client, "GET", base + "/users/" + userId + "/friends", null, JSON, 200);
+        send(client, "GET", base + "/films", null, "application/x-jackson-smile", 200);
+        send(client, "GET", base + "/films", null, "application/x-filmorate-varint", 200);
+        send(client, "GET", base + "/films/0", null, JSON, 404);
+        send(client, "POST", base + "/films", "{}", JSON, 400);
+    }
+
+    private static String send(HttpClient client, String method, String uri, String body, String accept,
+                               int expectedStatus) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(uri))
+                .timeout(TIMEOUT)
+                .header("Accept", accept);
+        if (body != null) {
+            request.header("Content-Type", JSON);
+        }
+        request.method(method, body == null
+                ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body));
+        HttpResponse<String> response = client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != expectedStatus) {
+            throw new IllegalStateException(method + " " + uri + " вернул " + response.statusCode()
+                    + " вместо " + expectedStatus);
+        }
+        return response.body();
+    }
+
+    private long id(String body) throws Exception {
+        return objectMapper.readTree(body).get("id").asLong();
+    }
+}
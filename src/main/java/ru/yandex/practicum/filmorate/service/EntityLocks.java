@@ -0,0 +1,83 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.EntityType;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/*
+ * Блокировки сущностей по полосам. Чтение сущности, изменение её связей, сохранение и публикация события
+ * идут под одной полосой, поэтому степень в событии соответствует именно этому изменению, а события одной
+ * сущности выходят в том же порядке, в каком менялось её состояние. Полосы фильмов и пользователей разные;
+ * если нужны обе, пользователь берётся первым.
+ */
+@Component
+public class EntityLocks {
+    private final ReentrantLock[] filmStripes;
+    private final ReentrantLock[] userStripes;
+
+    public EntityLocks(@Value("${filmorate.locks.stripes:1024}") int stripes) {
+        this.filmStripes = newStripes(stripes);
+        this.userStripes = newStripes(stripes);
+    }
+
+    public void run(EntityType entity, Long id, Runnable action) {
+        call(entity, id, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    public <T> T call(EntityType entity, Long id, Supplier<T> action) {
+        ReentrantLock lock = stripe(entity, id);
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Две сущности одного типа блокируются в порядке номеров полос, чтобы встречные запросы не взаимоблокировались
+    public void run(EntityType entity, Long first, Long second, Runnable action) {
+        ReentrantLock[] stripes = stripes(entity);
+        int firstIndex = index(first, stripes.length);
+        int secondIndex = index(second, stripes.length);
+        ReentrantLock firstLock = stripes[Math.min(firstIndex, secondIndex)];
+        ReentrantLock secondLock = stripes[Math.max(firstIndex, secondIndex)];
+        firstLock.lock();
+        try {
+            secondLock.lock();
+            try {
+                action.run();
+            } finally {
+                secondLock.unlock();
+            }
+        } finally {
+            firstLock.unlock();
+        }
+    }
+
+    private ReentrantLock stripe(EntityType entity, Long id) {
+        ReentrantLock[] stripes = stripes(entity);
+        return stripes[index(id, stripes.length)];
+    }
+
+    private ReentrantLock[] stripes(EntityType entity) {
+        return entity == EntityType.FILM ? filmStripes : userStripes;
+    }
+
+    private static int index(Long id, int length) {
+        return Math.floorMod(Long.hashCode(id * 0x9E3779B97F4A7C15L), length);
+    }
+
+    private static ReentrantLock[] newStripes(int count) {
+        ReentrantLock[] stripes = new ReentrantLock[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        return stripes;
+    }
+}
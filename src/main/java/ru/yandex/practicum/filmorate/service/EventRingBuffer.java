@@ -0,0 +1,47 @@
+package ru.yandex.practicum.filmorate.service;
+
+import ru.yandex.practicum.filmorate.model.Event;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Кольцевой буфер фиксированного размера: запись не блокируется, старые события перезаписываются
+public class EventRingBuffer {
+    private final AtomicReferenceArray<Event> slots;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong();
+
+    public EventRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    public long publish(Event event) {
+        long offset = head.getAndIncrement();
+        event.setOffset(offset);
+        slots.set((int) (offset & mask), event);
+        return offset;
+    }
+
+    // null - событие с таким смещением ещё не записано либо уже перезаписано
+    public Event get(long offset) {
+        Event event = slots.get((int) (offset & mask));
+        if (event == null || event.getOffset() != offset) {
+            return null;
+        }
+        return event;
+    }
+
+    public long head() {
+        return head.get();
+    }
+
+    public long oldest() {
+        return Math.max(0, head.get() - slots.length());
+    }
+
+    public int capacity() {
+        return slots.length();
+    }
+}
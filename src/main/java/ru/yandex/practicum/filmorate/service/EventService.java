@@ -0,0 +1,170 @@
+package ru.yandex.practicum.filmorate.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.yandex.practicum.filmorate.exception.ServiceUnavailableException;
+import ru.yandex.practicum.filmorate.model.Event;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Рассылка событий подписчикам SSE из общего кольцевого буфера. Отправка синхронная и идёт на нескольких
+ * общих потоках, поэтому медленный клиент ограничен с двух сторон: если он отстал больше чем на max-lag
+ * событий, получает RESET и продолжает с головы буфера, а если одна отправка заняла дольше send-timeout-ms,
+ * отключается и может переподписаться со своего смещения.
+ */
+@Service
+@Slf4j
+public class EventService {
+    private final EventRingBuffer buffer;
+    private final ExecutorService dispatcher;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final int maxSubscribers;
+    private final int batchSize;
+    private final long timeoutMillis;
+    private final int maxLag;
+    private final long sendTimeoutNanos;
+
+    public EventService(@Value("${filmorate.events.capacity:4096}") int capacity,
+                        @Value("${filmorate.events.dispatcher-threads:4}") int dispatcherThreads,
+                        @Value("${filmorate.events.max-subscribers:10000}") int maxSubscribers,
+                        @Value("${filmorate.events.batch-size:256}") int batchSize,
+                        @Value("${filmorate.events.timeout-ms:1800000}") long timeoutMillis,
+                        @Value("${filmorate.events.max-lag:2048}") int maxLag,
+                        @Value("${filmorate.events.send-timeout-ms:5000}") long sendTimeoutMillis) {
+        this.buffer = new EventRingBuffer(capacity);
+        this.maxSubscribers = maxSubscribers;
+        this.batchSize = batchSize;
+        this.timeoutMillis = timeoutMillis;
+        this.maxLag = maxLag;
+        this.sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMillis);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.dispatcher = Executors.newFixedThreadPool(dispatcherThreads, runnable -> {
+            Thread thread = new Thread(runnable, "event-dispatcher-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener
+    public void onEvent(Event event) {
+        buffer.publish(event);
+        for (Subscriber subscriber : subscribers) {
+            subscriber.signal();
+        }
+    }
+
+    public SseEmitter subscribe(Long fromOffset) {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new ServiceUnavailableException("Превышено максимальное количество подписчиков на события, "
+                    + "повторите подписку позже");
+        }
+        long head = buffer.head();
+        long start = fromOffset == null ? head : Math.min(Math.max(0, fromOffset), head);
+        SseEmitter emitter = createEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter, start);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        log.info("Новый подписчик на события, смещение={}, всего подписчиков={}", start, subscribers.size());
+        subscriber.signal();
+        return emitter;
+    }
+
+    public long getHeadOffset() {
+        return buffer.head();
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    protected SseEmitter createEmitter(long timeoutMillis) {
+        return new SseEmitter(timeoutMillis);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+    }
+
+    private class Subscriber {
+        private final SseEmitter emitter;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile long cursor;
+
+        Subscriber(SseEmitter emitter, long cursor) {
+            this.emitter = emitter;
+            this.cursor = cursor;
+        }
+
+        void signal() {
+            if (cursor < buffer.head() && scheduled.compareAndSet(false, true)) {
+                try {
+                    dispatcher.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    scheduled.set(false);
+                }
+            }
+        }
+
+        // Отправляет не больше batchSize событий за раз, чтобы медленный клиент не занимал поток надолго
+        private void drain() {
+            try {
+                long head = buffer.head();
+                long oldest = buffer.oldest();
+                if (cursor < oldest || head - cursor > maxLag) {
+                    long skipTo = Math.max(oldest, head - maxLag);
+                    log.warn("Подписчик отстал на {} событий, часть событий пропущена", skipTo - cursor);
+                    send(SseEmitter.event().name("RESET").data(skipTo));
+                    cursor = skipTo;
+                }
+                int sent = 0;
+                while (cursor < head && sent < batchSize) {
+                    Event event = buffer.get(cursor);
+                    if (event == null) {
+                        break;
+                    }
+                    send(SseEmitter.event()
+                            .id(String.valueOf(event.getOffset()))
+                            .name(event.getType().name())
+                            .data(event));
+                    cursor++;
+                    sent++;
+                }
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Подписчик отключился: {}", e.getMessage());
+                subscribers.remove(this);
+                emitter.completeWithError(e);
+                return;
+            } finally {
+                scheduled.set(false);
+            }
+            signal();
+        }
+
+        private void send(SseEmitter.SseEventBuilder event) throws IOException {
+            long started = System.nanoTime();
+            emitter.send(event);
+            if (System.nanoTime() - started > sendTimeoutNanos) {
+                throw new IOException("отправка события заняла больше "
+                        + TimeUnit.NANOSECONDS.toMillis(sendTimeoutNanos) + " мс, подписчик отключён");
+            }
+        }
+    }
+}
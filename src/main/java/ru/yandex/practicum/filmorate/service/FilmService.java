@@ -2,40 +2,95 @@
 package ru.yandex.practicum.filmorate.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.EntityType;
+import ru.yandex.practicum.filmorate.model.Event;
+import ru.yandex.practicum.filmorate.model.EventType;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.storage.FilmStorage;
 import java.time.LocalDate;
-import java.util.Comparator;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 public class FilmService {
     private final FilmStorage filmStorage;
     private final UserService userService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PopularFilmsLeaderboard leaderboard;
+    private final LikeIndex likeIndex;
+    private final CascadeDeletionExecutor cascadeDeletionExecutor;
+    private final LikeWriteBehindQueue likeQueue;
+    private final EntityLocks entityLocks;
     private static final LocalDate MIN_RELEASE_DATE = LocalDate.of(1895, 12, 28);
 
     @Autowired
-    public FilmService(FilmStorage filmStorage, UserService userService) {
+    public FilmService(FilmStorage filmStorage, UserService userService, ApplicationEventPublisher eventPublisher,
+                       PopularFilmsLeaderboard leaderboard, LikeIndex likeIndex,
+                       CascadeDeletionExecutor cascadeDeletionExecutor, LikeWriteBehindQueue likeQueue,
+                       EntityLocks entityLocks) {
         this.filmStorage = filmStorage;
         this.userService = userService;
+        this.eventPublisher = eventPublisher;
+        this.leaderboard = leaderboard;
+        this.likeIndex = likeIndex;
+        this.cascadeDeletionExecutor = cascadeDeletionExecutor;
+        this.likeQueue = likeQueue;
+        this.entityLocks = entityLocks;
     }
 
     public Film create(Film film) {
         validateFilm(film);
-        return filmStorage.create(film);
+        Film createdFilm = filmStorage.create(film);
+        entityLocks.run(EntityType.FILM, createdFilm.getId(), () -> {
+            createdFilm.getLikes().forEach(userId -> likeIndex.add(userId, createdFilm.getId()));
+            publish(EventType.CREATE, createdFilm.getId(), null, createdFilm.getLikes().size());
+        });
+        return createdFilm;
     }
 
     public Film update(Film film) {
-        Film existingFilm = getFilmById(film.getId());
         validateFilm(film);
+        return entityLocks.call(EntityType.FILM, film.getId(), () -> {
+            Film existingFilm = getFilmById(film.getId());
+            film.setLikes(existingFilm.getLikes());
+
+            Film updatedFilm = filmStorage.update(film);
+            publish(EventType.UPDATE, updatedFilm.getId(), null, updatedFilm.getLikes().size());
+            return updatedFilm;
+        });
+    }
 
-        film.setLikes(existingFilm.getLikes());
+    public void delete(Long id) {
+        entityLocks.run(EntityType.FILM, id, () -> {
+            Film film = getFilmById(id);
+            filmStorage.delete(id);
+            film.getLikes().forEach(userId -> likeIndex.remove(userId, id));
+            publish(EventType.DELETE, id, null, film.getLikes().size());
+        });
+    }
 
-        return filmStorage.update(film);
+    // Лайки удалённого пользователя снимаются только с тех фильмов, которые он лайкал.
+    // Пока индекс лайков строится после старта, каскад откладывается до его готовности.
+    // При отложенной записи снятие идёт через очередь, за ещё не применёнными лайками.
+    // На реплике каскад не запускается: снятые лайки приходят из журнала ведущего узла
+    @EventListener(condition = "#event.entity.name() == 'USER' && #event.type.name() == 'DELETE'")
+    public void onUserDeleted(Event event) {
+        if (event.isReplicated()) {
+            return;
+        }
+        Long userId = event.getEntityId();
+        likeIndex.whenReady(() -> cascadeDeletionExecutor.run("лайков пользователя ID=" + userId,
+                likeIndex.removeUser(userId), filmId -> {
+                    if (likeQueue.isEnabled()) {
+                        likeQueue.enqueueCascadeUnlike(filmId, userId);
+                    } else {
+                        entityLocks.run(EntityType.FILM, filmId, () -> removeDeletedUserLike(filmId, userId));
+                    }
+                }));
     }
 
     public List<Film> findAll() {
@@ -48,28 +103,63 @@ public class FilmService {
     }
 
     public void addLike(Long filmId, Long userId) {
-        Film film = getFilmById(filmId);
-        userService.getUserById(userId); // Проверяем что пользователь существует
-
-        film.getLikes().add(userId);
-        filmStorage.update(film); // Сохраняем изменения
+        if (likeQueue.isEnabled()) {
+            getFilmById(filmId);
+            userService.getUserById(userId); // Проверяем что пользователь существует
+            likeQueue.enqueue(filmId, userId, true);
+            return;
+        }
+        // Полоса пользователя держится до записи в индекс: удаление пользователя либо отклонит лайк,
+        // либо случится позже, и его каскад найдёт фильм в индексе
+        entityLocks.run(EntityType.USER, userId, () -> entityLocks.run(EntityType.FILM, filmId, () -> {
+            Film film = getFilmById(filmId);
+            userService.getUserById(userId); // Проверяем что пользователь существует
+            if (film.getLikes().add(userId)) {
+                filmStorage.update(film); // Сохраняем изменения
+                likeIndex.add(userId, filmId);
+                publish(EventType.LIKE, filmId, userId, film.getLikes().size());
+            }
+        }));
     }
 
     public void removeLike(Long filmId, Long userId) {
-        Film film = getFilmById(filmId);
-        userService.getUserById(userId); // Проверяем что пользователь существует
-
-        film.getLikes().remove(userId);
-        filmStorage.update(film); // Сохраняем изменения
+        if (likeQueue.isEnabled()) {
+            getFilmById(filmId);
+            userService.getUserById(userId); // Проверяем что пользователь существует
+            likeQueue.enqueue(filmId, userId, false);
+            return;
+        }
+        entityLocks.run(EntityType.USER, userId, () -> entityLocks.run(EntityType.FILM, filmId, () -> {
+            Film film = getFilmById(filmId);
+            userService.getUserById(userId); // Проверяем что пользователь существует
+            if (film.getLikes().remove(userId)) {
+                filmStorage.update(film); // Сохраняем изменения
+                likeIndex.remove(userId, filmId);
+                publish(EventType.UNLIKE, filmId, userId, film.getLikes().size());
+            }
+        }));
     }
 
     public List<Film> getPopularFilms(Integer count) {
         int limit = (count == null || count <= 0) ? 10 : count;
+        if (limit <= leaderboard.getCapacity()) {
+            return leaderboard.getTop(limit);
+        }
+
+        return filmStorage.findTopByLikes(limit);
+    }
+
+    private void removeDeletedUserLike(Long filmId, Long userId) {
+        filmStorage.findById(filmId).ifPresent(film -> {
+            if (film.getLikes().remove(userId)) {
+                filmStorage.update(film);
+                publish(EventType.UNLIKE, filmId, userId, film.getLikes().size());
+            }
+        });
+    }
 
-        return filmStorage.findAll().stream()
-                .sorted(Comparator.comparingInt((Film f) -> f.getLikes().size()).reversed())
-                .limit(limit)
-                .collect(Collectors.toList());
+    private void publish(EventType type, Long filmId, Long userId, int likes) {
+        eventPublisher.publishEvent(new Event(EntityType.FILM, type, filmId, userId, likes, null));
     }
 
     private void validateFilm(Film film) {
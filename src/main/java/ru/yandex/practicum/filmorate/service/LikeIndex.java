@@ -0,0 +1,83 @@
+package ru.yandex.practicum.filmorate.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * Обратный индекс лайков: пользователь -> фильмы, которые он лайкнул. При старте индекс строится в фоне,
+ * чтобы постоянные хранилища не декодировали все фильмы до приёма запросов. Живые изменения идут в индекс
+ * параллельно с построением, поэтому лайк в нём не теряется, но может остаться лишний фильм: каскад
+ * удаления всё равно проверяет сам фильм. Каскады, запрошенные до конца построения, откладываются.
+ */
+@Component
+@Slf4j
+public class LikeIndex {
+    private final FilmStorage filmStorage;
+    private final ConcurrentHashMap<Long, Set<Long>> filmsByUser = new ConcurrentHashMap<>();
+    private volatile CompletableFuture<Void> ready = CompletableFuture.completedFuture(null);
+
+    public LikeIndex(FilmStorage filmStorage) {
+        this.filmStorage = filmStorage;
+    }
+
+    @PostConstruct
+    public void start() {
+        ready = new CompletableFuture<>();
+        Thread thread = new Thread(this::rebuild, "like-index-rebuild");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public void add(Long userId, Long filmId) {
+        filmsByUser.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet()).add(filmId);
+    }
+
+    public void remove(Long userId, Long filmId) {
+        filmsByUser.computeIfPresent(userId, (id, films) -> {
+            films.remove(filmId);
+            return films.isEmpty() ? null : films;
+        });
+    }
+
+    public Set<Long> removeUser(Long userId) {
+        Set<Long> films = filmsByUser.remove(userId);
+        return films == null ? Set.of() : films;
+    }
+
+    public Set<Long> getLikedFilms(Long userId) {
+        return filmsByUser.getOrDefault(userId, Set.of());
+    }
+
+    public boolean isReady() {
+        return ready.isDone();
+    }
+
+    // Выполняет action сразу, если индекс построен, иначе - в потоке построения после его завершения
+    public void whenReady(Runnable action) {
+        ready.thenRun(action);
+    }
+
+    private void rebuild() {
+        long started = System.nanoTime();
+        try {
+            filmStorage.forEachId(filmId -> filmStorage.findById(filmId).ifPresent(this::addLikes));
+            log.info("Индекс лайков построен за {} мс, пользователей с лайками: {}",
+                    (System.nanoTime() - started) / 1_000_000, filmsByUser.size());
+        } catch (RuntimeException e) {
+            log.error("Ошибка построения индекса лайков: {}", e.getMessage(), e);
+        } finally {
+            ready.complete(null);
+        }
+    }
+
+    private void addLikes(Film film) {
+        film.getLikes().forEach(userId -> add(userId, film.getId()));
+    }
+}
@@ -0,0 +1,255 @@
+package ru.yandex.practicum.filmorate.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.TooManyRequestsException;
+import ru.yandex.practicum.filmorate.model.EntityType;
+import ru.yandex.practicum.filmorate.model.Event;
+import ru.yandex.practicum.filmorate.model.EventType;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+ * Отложенная запись лайков. Запрос только кладёт операцию в неблокирующую очередь шарда фильма,
+ * а единственный поток шарда забирает операции пачками, схлопывает повторы по паре фильм-пользователь
+ * (побеждает последняя) и сохраняет каждый фильм один раз на пачку. Все операции одного фильма
+ * идут через один поток, поэтому его набор лайков никто не меняет конкурентно.
+ */
+@Component
+@Slf4j
+public class LikeWriteBehindQueue {
+    private final FilmStorage filmStorage;
+    private final UserStorage userStorage;
+    private final LikeIndex likeIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EntityLocks entityLocks;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int maxPending;
+    private final Shard[] shards;
+    private final Counter coalesced;
+    private final Counter dropped;
+    private volatile boolean running = true;
+
+    public LikeWriteBehindQueue(FilmStorage filmStorage, UserStorage userStorage, LikeIndex likeIndex,
+                                ApplicationEventPublisher eventPublisher, EntityLocks entityLocks,
+                                MeterRegistry meterRegistry,
+                                @Value("${filmorate.likes.write-behind.enabled:false}") boolean enabled,
+                                @Value("${filmorate.likes.write-behind.shards:4}") int shardCount,
+                                @Value("${filmorate.likes.write-behind.batch-size:1024}") int batchSize,
+                                @Value("${filmorate.likes.write-behind.max-pending:100000}") int maxPending) {
+        this.filmStorage = filmStorage;
+        this.userStorage = userStorage;
+        this.likeIndex = likeIndex;
+        this.eventPublisher = eventPublisher;
+        this.entityLocks = entityLocks;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.maxPending = maxPending;
+        this.shards = new Shard[enabled ? shardCount : 0];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new Shard(i);
+        }
+        this.coalesced = Counter.builder("filmorate.likes.write-behind.coalesced")
+                .description("Операции с лайками, схлопнутые более поздней операцией той же пары")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("filmorate.likes.write-behind.dropped")
+                .description("Операции с лайками, потерянные из-за ошибки применения")
+                .register(meterRegistry);
+        Gauge.builder("filmorate.likes.write-behind.pending", this, LikeWriteBehindQueue::getPending)
+                .description("Операции с лайками, ожидающие применения")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        for (Shard shard : shards) {
+            shard.thread.start();
+        }
+        if (enabled) {
+            log.info("Отложенная запись лайков включена, шардов: {}", shards.length);
+        }
+    }
+
+    // Перед остановкой дописываем всё, что уже принято от клиентов
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        for (Shard shard : shards) {
+            LockSupport.unpark(shard.thread);
+            shard.thread.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void enqueue(Long filmId, Long userId, boolean like) {
+        Shard shard = shard(filmId);
+        if (shard.pending.incrementAndGet() > maxPending) {
+            shard.pending.decrementAndGet();
+            throw new TooManyRequestsException("Очередь лайков переполнена, повторите запрос позже");
+        }
+        offer(shard, new LikeOperation(filmId, userId, like));
+    }
+
+    // Снятие лайка каскадом удаления пользователя: идёт за ещё не применёнными лайками того же фильма
+    // и не отклоняется по переполнению, иначе лайк удалённого пользователя остался бы навсегда
+    public void enqueueCascadeUnlike(Long filmId, Long userId) {
+        Shard shard = shard(filmId);
+        shard.pending.incrementAndGet();
+        offer(shard, new LikeOperation(filmId, userId, false));
+    }
+
+    private Shard shard(Long filmId) {
+        return shards[Math.floorMod(Long.hashCode(filmId * 0x9E3779B97F4A7C15L), shards.length)];
+    }
+
+    private void offer(Shard shard, LikeOperation operation) {
+        shard.queue.offer(operation);
+        if (shard.parked) {
+            LockSupport.unpark(shard.thread);
+        }
+    }
+
+    public int getPending() {
+        int pending = 0;
+        for (Shard shard : shards) {
+            pending += shard.pending.get();
+        }
+        return pending;
+    }
+
+    // Ждёт, пока все принятые операции будут применены; false, если не дождались за timeoutMillis
+    public boolean awaitApplied(long timeoutMillis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (getPending() > 0) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        return true;
+    }
+
+    // Под блокировкой фильма, потому что каскад удаления пользователя меняет лайки в обход очереди.
+    // Ошибка одного фильма не должна терять операции остальных фильмов пачки
+    private void apply(Long filmId, Map<Long, Boolean> operations) {
+        try {
+            entityLocks.run(EntityType.FILM, filmId, () -> applyLocked(filmId, operations));
+        } catch (RuntimeException e) {
+            dropped.increment(operations.size());
+            log.error("Ошибка применения {} операций с лайками фильма ID={}: {}", operations.size(), filmId,
+                    e.getMessage(), e);
+        }
+    }
+
+
+    private void applyLocked(Long filmId, Map<Long, Boolean> operations) {
+        Film film = filmStorage.findById(filmId).orElse(null);
+        if (film == null) {
+            log.debug("Фильм ID={} удалён, {} операций с лайками отброшено", filmId, operations.size());
+            return;
+        }
+        List<Long> liked = new ArrayList<>();
+        List<Long> unliked = new ArrayList<>();
+        operations.forEach((userId, like) -> {
+            if (like && !likedByExistingUser(userId, filmId)) {
+                return;
+            }
+            if (like ? film.getLikes().add(userId) : film.getLikes().remove(userId)) {
+                (like ? liked : unliked).add(userId);
+            }
+        });
+        if (liked.isEmpty() && unliked.isEmpty()) {
+            return;
+        }
+        filmStorage.update(film);
+        // События пачки идут по одному, поэтому число лайков в них восстанавливается пошагово
+        int likes = film.getLikes().size() - liked.size() + unliked.size();
+        for (Long userId : liked) {
+            eventPublisher.publishEvent(new Event(EntityType.FILM, EventType.LIKE, filmId, userId, ++likes, null));
+        }
+        for (Long userId : unliked) {
+            likeIndex.remove(userId, filmId);
+            eventPublisher.publishEvent(new Event(EntityType.FILM, EventType.UNLIKE, filmId, userId, --likes, null));
+        }
+    }
+
+    // Индекс пополняется до проверки пользователя. Если удаление пользователя произошло после проверки,
+    // его каскад уже увидит фильм в индексе и поставит снятие лайка в очередь следом
+    private boolean likedByExistingUser(Long userId, Long filmId) {
+        likeIndex.add(userId, filmId);
+        if (userStorage.existsById(userId)) {
+            return true;
+        }
+        likeIndex.remove(userId, filmId);
+        log.debug("Пользователь ID={} удалён, лайк фильму ID={} отброшен", userId, filmId);
+        return false;
+    }
+
+    private record LikeOperation(Long filmId, Long userId, boolean like) {
+    }
+
+    private class Shard {
+        private final ConcurrentLinkedQueue<LikeOperation> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pending = new AtomicInteger();
+        private final Thread thread;
+        private volatile boolean parked;
+
+        Shard(int number) {
+            this.thread = new Thread(this::run, "like-applier-" + number);
+            this.thread.setDaemon(true);
+        }
+
+        private void run() {
+            Map<Long, Map<Long, Boolean>> batch = new LinkedHashMap<>();
+            while (running || !queue.isEmpty()) {
+                int drained = 0;
+                LikeOperation operation;
+                while (drained < batchSize && (operation = queue.poll()) != null) {
+                    Boolean previous = batch.computeIfAbsent(operation.filmId(), id -> new LinkedHashMap<>())
+                            .put(operation.userId(), operation.like());
+                    if (previous != null) {
+                        coalesced.increment();
+                    }
+                    drained++;
+                }
+                if (drained == 0) {
+                    park();
+                    continue;
+                }
+                batch.forEach(LikeWriteBehindQueue.this::apply);
+                batch.clear();
+                pending.addAndGet(-drained);
+            }
+        }
+
+        // Флаг выставляется до повторной проверки очереди, поэтому сигнал производителя не теряется
+        private void park() {
+            parked = true;
+            if (queue.isEmpty() && running) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100));
+            }
+            parked = false;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package ru.yandex.practicum.filmorate.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.EntityType;
+import ru.yandex.practicum.filmorate.model.Event;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Топ фильмов по лайкам пересчитывается в фоне, чтение отдаёт срез готового неизменяемого снимка.
+// Чтение ждёт пересчёта, только если снимок старше max-staleness-ms (по умолчанию - интервал пересчёта)
+@Component
+@Slf4j
+public class PopularFilmsLeaderboard {
+    private final FilmStorage filmStorage;
+    private final int capacity;
+    private final long debounceMillis;
+    private final long refreshIntervalMillis;
+    private final long maxStalenessMillis;
+    private final ScheduledExecutorService scheduler;
+
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicLong dirtySince = new AtomicLong();
+    private final AtomicBoolean refreshScheduled = new AtomicBoolean();
+    private final AtomicBoolean urgentRefreshScheduled = new AtomicBoolean();
+    private volatile Snapshot snapshot = new Snapshot(List.of(), -1);
+    private volatile CompletableFuture<Void> nextRefresh = new CompletableFuture<>();
+
+    public PopularFilmsLeaderboard(FilmStorage filmStorage,
+                                   @Value("${filmorate.popular.capacity:1000}") int capacity,
+                                   @Value("${filmorate.popular.debounce-ms:50}") long debounceMillis,
+                                   @Value("${filmorate.popular.refresh-interval-ms:1000}") long refreshIntervalMillis,
+                                   @Value("${filmorate.popular.max-staleness-ms:1000}") long maxStalenessMillis) {
+        this.filmStorage = filmStorage;
+        this.capacity = capacity;
+        this.debounceMillis = debounceMillis;
+        this.refreshIntervalMillis = refreshIntervalMillis;
+        this.maxStalenessMillis = maxStalenessMillis;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "popular-films-leaderboard");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public void start() {
+        markDirty();
+        scheduler.execute(this::refresh);
+        scheduler.scheduleWithFixedDelay(() -> {
+            if (dirtySince.get() != 0) {
+                refresh();
+            }
+        }, refreshIntervalMillis, refreshIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    @EventListener
+    public void onEvent(Event event) {
+        if (event.getEntity() == EntityType.FILM) {
+            markDirty();
+            scheduleRefresh(debounceMillis);
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public List<Film> getTop(int count) {
+        List<Film> films = current().films;
+        return films.subList(0, Math.min(count, films.size()));
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        long since = dirtySince.get();
+        if (since == 0 || System.currentTimeMillis() - since < maxStalenessMillis) {
+            return current;
+        }
+        // Снимок устарел сильнее допустимого - ждём фоновый пересчёт, сами не сортируем
+        long target = version.get();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (current.version < target && System.nanoTime() < deadline) {
+            CompletableFuture<Void> refreshed = nextRefresh;
+            scheduleUrgentRefresh();
+            try {
+                refreshed.get(Math.max(1, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                log.warn("Не дождались пересчёта популярных фильмов, отдаём устаревший снимок");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                break;
+            }
+            current = snapshot;
+        }
+        return current;
+    }
+
+    private void markDirty() {
+        version.incrementAndGet();
+        dirtySince.compareAndSet(0, System.currentTimeMillis());
+    }
+
+    private void scheduleRefresh(long delayMillis) {
+        if (refreshScheduled.compareAndSet(false, true)) {
+            scheduler.schedule(this::refresh, delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Отложенный пересчёт уже может стоять в очереди с задержкой, поэтому ставим отдельный - без неё
+    private void scheduleUrgentRefresh() {
+        if (urgentRefreshScheduled.compareAndSet(false, true)) {
+            scheduler.execute(() -> {
+                urgentRefreshScheduled.set(false);
+                refresh();
+            });
+        }
+    }
+
+    private void refresh() {
+        refreshScheduled.set(false);
+        dirtySince.set(0);
+        long currentVersion = version.get();
+        try {
+            snapshot = new Snapshot(List.copyOf(filmStorage.findTopByLikes(capacity)), currentVersion);
+        } catch (RuntimeException e) {
+            log.error("Ошибка пересчёта популярных фильмов: {}", e.getMessage(), e);
+            dirtySince.compareAndSet(0, System.currentTimeMillis());
+        } finally {
+            CompletableFuture<Void> refreshed = nextRefresh;
+            nextRefresh = new CompletableFuture<>();
+            refreshed.complete(null);
+        }
+    }
+
+    private record Snapshot(List<Film> films, long version) {
+    }
+}
@@ -0,0 +1,88 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.function.LongFunction;
+
+/*
+ * Прогрев перед приёмом трафика. Spring Boot переводит readiness в ACCEPTING_TRAFFIC только после
+ * всех ApplicationRunner, поэтому балансировщик не пошлёт запросы, пока хранилища не прочитаны,
+ * рейтинг не посчитан, а сериализаторы Jackson для фильмов и пользователей не построены.
+ * Бин безусловный: при AOT-сборке условия фиксируются, а прогрев должен включаться при запуске.
+ */
+@Component
+@Slf4j
+public class StartupWarmup implements ApplicationRunner {
+    private final FilmStorage filmStorage;
+    private final UserStorage userStorage;
+    private final PopularFilmsLeaderboard leaderboard;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final int iterations;
+
+    public StartupWarmup(FilmStorage filmStorage, UserStorage userStorage, PopularFilmsLeaderboard leaderboard,
+                         ObjectMapper objectMapper,
+                         @Value("${filmorate.warmup.enabled:false}") boolean enabled,
+                         @Value("${filmorate.warmup.iterations:200}") int iterations) {
+        this.filmStorage = filmStorage;
+        this.userStorage = userStorage;
+        this.leaderboard = leaderboard;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.iterations = iterations;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        if (!enabled) {
+            return;
+        }
+        long started = System.currentTimeMillis();
+        // Проход по id подтягивает страницы off-heap и mapped хранилищ в память; сущности читаются
+        // по одной и сразу отпускаются, поэтому объём хранилища не ограничен размером кучи
+        AtomicReference<Film> firstFilm = new AtomicReference<>();
+        AtomicReference<User> firstUser = new AtomicReference<>();
+        long films = touchAll(filmStorage::forEachId, filmStorage::findById, firstFilm);
+        long users = touchAll(userStorage::forEachId, userStorage::findById, firstUser);
+        List<Film> top = leaderboard.getTop(leaderboard.getCapacity());
+
+        Film sampleFilm = firstFilm.get() == null
+                ? new Film(0L, "Прогрев", "Прогрев", LocalDate.of(2000, 1, 1), 100) : firstFilm.get();
+        User sampleUser = firstUser.get() == null
+                ? new User(0L, "warmup", "warmup@mail.ru", "Прогрев", LocalDate.of(2000, 1, 1)) : firstUser.get();
+        for (int i = 0; i < iterations; i++) {
+            objectMapper.readValue(objectMapper.writeValueAsBytes(sampleFilm), Film.class);
+            objectMapper.readValue(objectMapper.writeValueAsBytes(sampleUser), User.class);
+            objectMapper.writeValueAsBytes(top.subList(0, Math.min(10, top.size())));
+        }
+        log.info("Прогрев завершён за {} мс: фильмов {}, пользователей {}, в рейтинге {}",
+                System.currentTimeMillis() - started, films, users, top.size());
+    }
+
+    private static <T> long touchAll(Consumer<LongConsumer> forEachId, LongFunction<Optional<T>> findById,
+                                     AtomicReference<T> first) {
+        LongAdder count = new LongAdder();
+        forEachId.accept(id -> findById.apply(id).ifPresent(entity -> {
+            first.compareAndSet(null, entity);
+            count.increment();
+        }));
+        return count.sum();
+    }
+}
@@ -0,0 +1,230 @@
+package ru.yandex.practicum.filmorate.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.model.EntityType;
+import ru.yandex.practicum.filmorate.model.Event;
+import ru.yandex.practicum.filmorate.model.EventType;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.stats.DegreeHistogram;
+import ru.yandex.practicum.filmorate.stats.HyperLogLog;
+import ru.yandex.practicum.filmorate.stats.SpaceSaving;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/*
+ * Статистика лайков и дружбы, которая обновляется инкрементально по событиям сервисов и
+ * занимает постоянную память: гистограммы степеней, HyperLogLog для уникальных лайкеров
+ * (за всё время и по дням UTC) и Space-Saving для самых активных лайкеров. Степени берутся
+ * из события, поэтому удаления учитываются без чтения уже удалённой сущности. Сервисы снимают степень
+ * под блокировкой сущности (EntityLocks), так что переход степени в событии всегда ровно на единицу.
+ *
+ * Сохранённые данные учитываются одним фоновым проходом по id после старта. Проход читает сущность под
+ * той же блокировкой, поэтому событие либо уже вошло в прочитанное состояние и пропускается, либо пришло
+ * после прохода и применяется. Время лайка не хранится, поэтому dailyActiveLikers считается только по
+ * лайкам с момента запуска.
+ *
+ * topLikers и distinctLikers считают все поставленные лайки: снятие лайка и удаление пользователя их
+ * не уменьшают, потому что ни Space-Saving, ни HyperLogLog не поддерживают вычитание. После перезапуска
+ * они заново заполняются по лайкам, которые есть в хранилище.
+ */
+@Service
+@Slf4j
+public class StatisticsService {
+    private final FilmStorage filmStorage;
+    private final UserStorage userStorage;
+    private final EntityLocks entityLocks;
+    private final int precision;
+    private final int topLikersCount;
+    private final int retentionDays;
+
+    private final DegreeHistogram likesPerFilm = new DegreeHistogram();
+    private final DegreeHistogram friendsPerUser = new DegreeHistogram();
+    private final HyperLogLog distinctLikers;
+    private final ConcurrentSkipListMap<LocalDate, HyperLogLog> dailyLikers = new ConcurrentSkipListMap<>();
+    private final SpaceSaving topLikers;
+    private volatile Seeding seeding;
+
+    public StatisticsService(FilmStorage filmStorage, UserStorage userStorage, EntityLocks entityLocks,
+                             @Value("${filmorate.stats.hll-precision:14}") int precision,
+                             @Value("${filmorate.stats.top-likers:100}") int topLikersCount,
+                             @Value("${filmorate.stats.daily-retention-days:7}") int retentionDays) {
+        this.filmStorage = filmStorage;
+        this.userStorage = userStorage;
+        this.entityLocks = entityLocks;
+        this.precision = precision;
+        this.topLikersCount = topLikersCount;
+        this.retentionDays = retentionDays;
+        this.distinctLikers = new HyperLogLog(precision);
+        this.topLikers = new SpaceSaving(topLikersCount);
+    }
+
+    @PostConstruct
+    public void start() {
+        seeding = new Seeding();
+        Thread thread = new Thread(this::rebuild, "stats-rebuild");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public void rebuild() {
+        if (seeding == null) {
+            seeding = new Seeding();
+        }
+        Seeding current = seeding;
+        long started = System.nanoTime();
+        try {
+            filmStorage.forEachId(id -> entityLocks.run(EntityType.FILM, id,
+                    () -> filmStorage.findById(id).filter(film -> current.mark(EntityType.FILM, id))
+                            .ifPresent(this::seed)));
+            userStorage.forEachId(id -> entityLocks.run(EntityType.USER, id,
+                    () -> userStorage.findById(id).filter(user -> current.mark(EntityType.USER, id))
+                            .ifPresent(user -> friendsPerUser.add(user.getFriends().size()))));
+            log.info("Статистика восстановлена за {} мс: фильмов {}, пользователей {}",
+                    (System.nanoTime() - started) / 1_000_000, likesPerFilm.getEntities(),
+                    friendsPerUser.getEntities());
+        } catch (RuntimeException e) {
+            log.error("Ошибка восстановления статистики: {}", e.getMessage(), e);
+        } finally {
+            seeding = null;
+        }
+    }
+
+    @EventListener
+    public void onEvent(Event event) {
+        if (event.getEntityDegree() == null) {
+            return;
+        }
+        int degree = event.getEntityDegree();
+        DegreeHistogram histogram = event.getEntity() == EntityType.FILM ? likesPerFilm : friendsPerUser;
+        boolean counted = counts(event.getEntity(), event.getEntityId(), event.getType() == EventType.CREATE);
+        switch (event.getType()) {
+            case CREATE -> {
+                if (counted) {
+                    histogram.add(degree);
+                }
+            }
+            case DELETE -> {
+                if (counted) {
+                    histogram.remove(degree);
+                }
+            }
+            case LIKE -> {
+                distinctLikers.add(event.getRelatedId());
+                dailyLikers(event.getTimestamp()).add(event.getRelatedId());
+                if (counted) {
+                    likesPerFilm.move(degree - 1, degree);
+                    topLikers.add(event.getRelatedId());
+                }
+            }
+            case UNLIKE -> {
+                if (counted) {
+                    likesPerFilm.move(degree + 1, degree);
+                }
+            }
+            case FRIEND_ADD -> {
+                if (counted) {
+                    friendsPerUser.move(degree - 1, degree);
+                }
+                if (event.getRelatedDegree() != null && counts(EntityType.USER, event.getRelatedId(), false)) {
+                    friendsPerUser.move(event.getRelatedDegree() - 1, event.getRelatedDegree());
+                }
+            }
+            case FRIEND_REMOVE -> {
+                if (counted) {
+                    friendsPerUser.move(degree + 1, degree);
+                }
+                if (event.getRelatedDegree() != null && counts(EntityType.USER, event.getRelatedId(), false)) {
+                    friendsPerUser.move(event.getRelatedDegree() + 1, event.getRelatedDegree());
+                }
+            }
+            default -> {
+                // UPDATE не меняет ни лайки, ни друзей
+            }
+        }
+    }
+
+    // Поправка степени, изменившейся без событий лайков и дружбы (запись снимка на реплике); вызывается
+    // под блокировкой сущности
+    public void adjust(EntityType entity, Long id, int oldDegree, int newDegree) {
+        if (oldDegree != newDegree && counts(entity, id, false)) {
+            (entity == EntityType.FILM ? likesPerFilm : friendsPerUser).move(oldDegree, newDegree);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("films", likesPerFilm.getEntities());
+        stats.put("users", friendsPerUser.getEntities());
+        stats.put("likes", likesPerFilm.getTotal());
+        stats.put("friendships", friendsPerUser.getTotal() / 2);
+        stats.put("likesPerFilm", likesPerFilm.summary());
+        stats.put("friendsPerUser", friendsPerUser.summary());
+        stats.put("distinctLikers", distinctLikers.estimate());
+        Map<String, Long> daily = new TreeMap<>();
+        dailyLikers.forEach((day, sketch) -> daily.put(day.toString(), sketch.estimate()));
+        stats.put("dailyActiveLikers", daily);
+        stats.put("topLikers", topLikers.top(topLikersCount));
+        return stats;
+    }
+
+    // Пока идёт проход, событие учитывается только для уже прочитанной сущности; CREATE сам отмечает новую,
+    // если проход не успел прочитать её раньше (создание публикуется без блокировки)
+    private boolean counts(EntityType entity, Long id, boolean create) {
+        Seeding current = seeding;
+        if (current == null) {
+            return true;
+        }
+        return create ? current.mark(entity, id) : current.isMarked(entity, id);
+    }
+
+    private void seed(Film film) {
+        likesPerFilm.add(film.getLikes().size());
+        for (Long userId : film.getLikes()) {
+            distinctLikers.add(userId);
+            topLikers.add(userId);
+        }
+    }
+
+    private HyperLogLog dailyLikers(long timestamp) {
+        LocalDate day = LocalDate.ofInstant(Instant.ofEpochMilli(timestamp), ZoneOffset.UTC);
+        HyperLogLog sketch = dailyLikers.get(day);
+        if (sketch == null) {
+            sketch = dailyLikers.computeIfAbsent(day, d -> new HyperLogLog(precision));
+            dailyLikers.headMap(day.minusDays(retentionDays - 1)).clear();
+        }
+        return sketch;
+    }
+
+    // Id сущностей, уже учтённых проходом; id выдаются подряд с единицы, поэтому хватает битовой карты
+    private static class Seeding {
+        private final BitSet films = new BitSet();
+        private final BitSet users = new BitSet();
+
+        synchronized boolean mark(EntityType entity, Long id) {
+            BitSet seeded = entity == EntityType.FILM ? films : users;
+            int index = Math.toIntExact(id);
+            if (seeded.get(index)) {
+                return false;
+            }
+            seeded.set(index);
+            return true;
+        }
+
+        synchronized boolean isMarked(EntityType entity, Long id) {
+            return (entity == EntityType.FILM ? films : users).get(Math.toIntExact(id));
+        }
+    }
+}
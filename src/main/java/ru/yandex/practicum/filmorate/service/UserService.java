@@ -1,9 +1,13 @@
 package ru.yandex.practicum.filmorate.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.EntityType;
+import ru.yandex.practicum.filmorate.model.Event;
+import ru.yandex.practicum.filmorate.model.EventType;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.UserStorage;
 import java.util.List;
@@ -12,10 +16,17 @@ import java.util.stream.Collectors;
 @Service
 public class UserService {
     private final UserStorage userStorage;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CascadeDeletionExecutor cascadeDeletionExecutor;
+    private final EntityLocks entityLocks;
 
     @Autowired
-    public UserService(UserStorage userStorage) {
+    public UserService(UserStorage userStorage, ApplicationEventPublisher eventPublisher,
+                       CascadeDeletionExecutor cascadeDeletionExecutor, EntityLocks entityLocks) {
         this.userStorage = userStorage;
+        this.eventPublisher = eventPublisher;
+        this.cascadeDeletionExecutor = cascadeDeletionExecutor;
+        this.entityLocks = entityLocks;
     }
 
     public User create(User user) {
@@ -28,11 +39,14 @@ public class UserService {
         if (user.getName() == null || user.getName().isBlank()) {
             user.setName(user.getLogin());
         }
-        return userStorage.create(user);
+        User createdUser = userStorage.create(user);
+        entityLocks.run(EntityType.USER, createdUser.getId(),
+                () -> publish(EventType.CREATE, createdUser.getId(), null, createdUser.getFriends().size(), null));
+        return createdUser;
     }
 
     public User update(User user) {
-        User existingUser = getUserById(user.getId());
+        getUserById(user.getId());
 
         boolean emailExists = userStorage.findAll().stream()
                 .filter(u -> !u.getId().equals(user.getId()))
@@ -40,9 +54,31 @@ public class UserService {
         if (emailExists) {
             throw new ValidationException("Этот email уже используется.");
         }
-        user.setFriends(existingUser.getFriends());
+        return entityLocks.call(EntityType.USER, user.getId(), () -> {
+            user.setFriends(getUserById(user.getId()).getFriends());
 
-        return userStorage.update(user);
+            User updatedUser = userStorage.update(user);
+            publish(EventType.UPDATE, updatedUser.getId(), null, updatedUser.getFriends().size(), null);
+            return updatedUser;
+        });
+    }
+
+    // Дружба симметрична, поэтому удалённого пользователя достаточно убрать у его же друзей
+    public void delete(Long id) {
+        User user = entityLocks.call(EntityType.USER, id, () -> {
+            User deleted = getUserById(id);
+            userStorage.delete(id);
+            publish(EventType.DELETE, id, null, deleted.getFriends().size(), null);
+            return deleted;
+        });
+        cascadeDeletionExecutor.run("друзей пользователя ID=" + id, user.getFriends(),
+                friendId -> entityLocks.run(EntityType.USER, friendId,
+                        () -> userStorage.findById(friendId).ifPresent(friend -> {
+                            if (friend.getFriends().remove(id)) {
+                                userStorage.update(friend);
+                                publish(EventType.FRIEND_REMOVE, friendId, id, friend.getFriends().size(), null);
+                            }
+                        })));
     }
 
     public List<User> findAll() {
@@ -55,41 +91,55 @@ public class UserService {
     }
 
     public void addFriend(Long userId, Long friendId) {
-        User user = getUserById(userId);
-        User friend = getUserById(friendId);
-
-        user.getFriends().add(friendId);
-        friend.getFriends().add(userId);
-
-        userStorage.update(user);
-        userStorage.update(friend);
+        entityLocks.run(EntityType.USER, userId, friendId, () -> {
+            User user = getUserById(userId);
+            User friend = getUserById(friendId);
+
+            boolean added = user.getFriends().add(friendId);
+            added |= friend.getFriends().add(userId);
+
+            if (added) {
+                userStorage.update(user);
+                userStorage.update(friend);
+                publish(EventType.FRIEND_ADD, userId, friendId, user.getFriends().size(),
+                        friend.getFriends().size());
+            }
+        });
     }
 
     public void removeFriend(Long userId, Long friendId) {
-        User user = getUserById(userId);
-        User friend = getUserById(friendId);
-
-        user.getFriends().remove(friendId);
-        friend.getFriends().remove(userId);
-
-        userStorage.update(user);
-        userStorage.update(friend);
+        entityLocks.run(EntityType.USER, userId, friendId, () -> {
+            User user = getUserById(userId);
+            User friend = getUserById(friendId);
+
+            boolean removed = user.getFriends().remove(friendId);
+            removed |= friend.getFriends().remove(userId);
+
+            if (removed) {
+                userStorage.update(user);
+                userStorage.update(friend);
+                publish(EventType.FRIEND_REMOVE, userId, friendId, user.getFriends().size(),
+                        friend.getFriends().size());
+            }
+        });
     }
 
     public List<User> getFriends(Long userId) {
         User user = getUserById(userId);
-        return user.getFriends().stream()
-                .map(this::getUserById)
-                .collect(Collectors.toList());
+        return userStorage.findAllById(user.getFriends());
     }
 
     public List<User> getCommonFriends(Long userId, Long otherId) {
         User user = getUserById(userId);
         User other = getUserById(otherId);
 
-        return user.getFriends().stream()
+        List<Long> commonIds = user.getFriends().stream()
                 .filter(friendId -> other.getFriends().contains(friendId))
-                .map(this::getUserById)
                 .collect(Collectors.toList());
+        return userStorage.findAllById(commonIds);
+    }
+
+    private void publish(EventType type, Long userId, Long friendId, Integer userFriends, Integer friendFriends) {
+        eventPublisher.publishEvent(new Event(EntityType.USER, type, userId, friendId, userFriends, friendFriends));
     }
 }
\ No newline at end of file
@@ -0,0 +1,118 @@
+package ru.yandex.practicum.filmorate.stats;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+ * Распределение степеней (лайков у фильма, друзей у пользователя) по корзинам-степеням двойки:
+ * [0], [1], [2..3], [4..7], ... Память постоянная, обновление - пара атомарных инкрементов,
+ * квантили оцениваются линейной интерполяцией внутри корзины.
+ */
+public class DegreeHistogram {
+    private static final int BUCKETS = 64;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong entities = new AtomicLong();
+    private final AtomicLong total = new AtomicLong();
+
+    public void add(int degree) {
+        counts.incrementAndGet(bucket(degree));
+        entities.incrementAndGet();
+        total.addAndGet(degree);
+    }
+
+    public void remove(int degree) {
+        counts.decrementAndGet(bucket(degree));
+        entities.decrementAndGet();
+        total.addAndGet(-degree);
+    }
+
+    public void move(int from, int to) {
+        int fromBucket = bucket(from);
+        int toBucket = bucket(to);
+        if (fromBucket != toBucket) {
+            counts.decrementAndGet(fromBucket);
+            counts.incrementAndGet(toBucket);
+        }
+        total.addAndGet(to - from);
+    }
+
+    public long getEntities() {
+        return entities.get();
+    }
+
+    public long getTotal() {
+        return total.get();
+    }
+
+    public double getMean() {
+        long count = entities.get();
+        return count == 0 ? 0 : (double) total.get() / count;
+    }
+
+    public double quantile(double q) {
+        long[] snapshot = snapshot();
+        long count = 0;
+        for (long bucketCount : snapshot) {
+            count += bucketCount;
+        }
+        if (count == 0) {
+            return 0;
+        }
+        double rank = q * count;
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            if (snapshot[i] > 0 && seen + snapshot[i] >= rank) {
+                double position = (rank - seen) / snapshot[i];
+                return lower(i) + position * (upper(i) - lower(i));
+            }
+            seen += snapshot[i];
+        }
+        return upper(BUCKETS - 1);
+    }
+
+    public Map<String, Object> summary() {
+        List<Map<String, Object>> buckets = new ArrayList<>();
+        long[] snapshot = snapshot();
+        for (int i = 0; i < BUCKETS; i++) {
+            if (snapshot[i] > 0) {
+                Map<String, Object> bucket = new LinkedHashMap<>();
+                bucket.put("from", lower(i));
+                bucket.put("to", upper(i));
+                bucket.put("count", snapshot[i]);
+                buckets.add(bucket);
+            }
+        }
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("mean", getMean());
+        summary.put("p50", quantile(0.5));
+        summary.put("p90", quantile(0.9));
+        summary.put("p99", quantile(0.99));
+        summary.put("histogram", buckets);
+        return summary;
+    }
+
+    private long[] snapshot() {
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = Math.max(0, counts.get(i));
+        }
+        return snapshot;
+    }
+
+    private static int bucket(int degree) {
+        return degree <= 0 ? 0 : 32 - Integer.numberOfLeadingZeros(degree);
+    }
+
+    private static long lower(int bucket) {
+        return bucket == 0 ? 0 : 1L << (bucket - 1);
+    }
+
+    private static long upper(int bucket) {
+        return bucket == 0 ? 0 : (1L << bucket) - 1;
+    }
+}
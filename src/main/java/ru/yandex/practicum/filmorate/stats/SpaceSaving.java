@@ -0,0 +1,140 @@
+package ru.yandex.practicum.filmorate.stats;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Алгоритм Space-Saving: держит не больше capacity счётчиков. Новый ключ при заполненной таблице
+ * вытесняет минимальный счётчик и наследует его значение как верхнюю оценку ошибки, поэтому
+ * любой ключ с частотой выше total / capacity гарантированно попадает в таблицу.
+ *
+ * Ключи разложены по независимым шардам по хешу, у каждого шарда свой монитор и своя таблица на capacity
+ * счётчиков, поэтому конкурентные add почти не ждут друг друга, а гарантия выполняется внутри шарда. Счётчики
+ * шарда лежат в min-куче, так что увеличение и вытеснение стоят O(log capacity), а не полный обход таблицы.
+ */
+public class SpaceSaving {
+    private static final int SHARDS = 16;
+
+    private final Shard[] shards = new Shard[SHARDS];
+
+    public SpaceSaving(int capacity) {
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new Shard(capacity);
+        }
+    }
+
+    public void add(long key) {
+        Shard shard = shards[Math.floorMod(Long.hashCode(key * 0x9E3779B97F4A7C15L), shards.length)];
+        synchronized (shard) {
+            shard.add(key);
+        }
+    }
+
+    public List<Map<String, Object>> top(int count) {
+        List<long[]> entries = new ArrayList<>();
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                for (int i = 0; i < shard.size; i++) {
+                    entries.add(new long[]{shard.keys[i], shard.counts[i], shard.errors[i]});
+                }
+            }
+        }
+        entries.sort((a, b) -> Long.compare(b[1], a[1]));
+        List<Map<String, Object>> top = new ArrayList<>();
+        for (long[] entry : entries.subList(0, Math.min(count, entries.size()))) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("id", entry[0]);
+            item.put("count", entry[1]);
+            item.put("error", entry[2]);
+            top.add(item);
+        }
+        return top;
+    }
+
+    // Min-куча по счётчику; positions хранит место каждого ключа в куче
+    private static class Shard {
+        private final long[] keys;
+        private final long[] counts;
+        private final long[] errors;
+        private final Map<Long, Integer> positions;
+        private int size;
+
+        Shard(int capacity) {
+            this.keys = new long[capacity];
+            this.counts = new long[capacity];
+            this.errors = new long[capacity];
+            this.positions = new HashMap<>(capacity * 2);
+        }
+
+        void add(long key) {
+            Integer position = positions.get(key);
+            if (position != null) {
+                counts[position]++;
+                siftDown(position);
+                return;
+            }
+            if (size < keys.length) {
+                keys[size] = key;
+                counts[size] = 1;
+                errors[size] = 0;
+                positions.put(key, size);
+                siftUp(size++);
+                return;
+            }
+            long minCount = counts[0];
+            positions.remove(keys[0]);
+            keys[0] = key;
+            counts[0] = minCount + 1;
+            errors[0] = minCount;
+            positions.put(key, 0);
+            siftDown(0);
+        }
+
+        private void siftUp(int index) {
+            while (index > 0) {
+                int parent = (index - 1) / 2;
+                if (counts[parent] <= counts[index]) {
+                    return;
+                }
+                swap(index, parent);
+                index = parent;
+            }
+        }
+
+        private void siftDown(int index) {
+            while (true) {
+                int smallest = index;
+                int left = 2 * index + 1;
+                int right = left + 1;
+                if (left < size && counts[left] < counts[smallest]) {
+                    smallest = left;
+                }
+                if (right < size && counts[right] < counts[smallest]) {
+                    smallest = right;
+                }
+                if (smallest == index) {
+                    return;
+                }
+                swap(index, smallest);
+                index = smallest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            long key = keys[a];
+            long count = counts[a];
+            long error = errors[a];
+            keys[a] = keys[b];
+            counts[a] = counts[b];
+            errors[a] = errors[b];
+            keys[b] = key;
+            counts[b] = count;
+            errors[b] = error;
+            positions.put(keys[a], a);
+            positions.put(keys[b], b);
+        }
+    }
+}
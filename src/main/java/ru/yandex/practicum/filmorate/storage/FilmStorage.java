@@ -2,17 +2,50 @@
 package ru.yandex.practicum.filmorate.storage;
 
 import ru.yandex.practicum.filmorate.model.Film;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.function.LongConsumer;
 
 public interface FilmStorage {
+    Comparator<Film> BY_LIKES = Comparator.comparingInt((Film f) -> f.getLikes().size()).reversed()
+            .thenComparing(Film::getId);
+
     Film create(Film film);
 
     Film update(Film film);
 
+    // Сохраняет фильм с уже заданным id целиком, включая лайки (применение реплицированных изменений)
+    Film save(Film film);
+
     List<Film> findAll();
 
     Optional<Film> findById(Long id);
 
     void delete(Long id);
-}
\ No newline at end of file
+
+    // Обход id без построения списка сущностей: постоянные хранилища при этом ничего не декодируют
+    default void forEachId(LongConsumer action) {
+        findAll().forEach(film -> action.accept(film.getId()));
+    }
+
+    // Топ по лайкам за O(n log k); хранилища, разбитые на части, считают его по частям и сливают
+    default List<Film> findTopByLikes(int count) {
+        return topByLikes(findAll(), count);
+    }
+
+    static List<Film> topByLikes(Iterable<Film> films, int count) {
+        PriorityQueue<Film> top = new PriorityQueue<>(count + 1, BY_LIKES.reversed());
+        for (Film film : films) {
+            top.offer(film);
+            if (top.size() > count) {
+                top.poll();
+            }
+        }
+        List<Film> result = new ArrayList<>(top);
+        result.sort(BY_LIKES);
+        return result;
+    }
+}
@@ -1,27 +1,32 @@
 package ru.yandex.practicum.filmorate.storage;
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Film;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
 
 @Component
+@ConditionalOnProperty(name = "filmorate.storage.type", havingValue = "in-memory", matchIfMissing = true)
 public class InMemoryFilmStorage implements FilmStorage {
-    private final Map<Long, Film> films = new HashMap<>();
-    private long currentId = 1L;
+    private final Map<Long, Film> films = new ConcurrentHashMap<>();
+    private final AtomicLong currentId = new AtomicLong(1L);
 
     @Override
     public Film create(Film film) {
-        film.setId(currentId);
-        films.put(currentId, film);
-        currentId++;
+        long id = currentId.getAndIncrement();
+        film.setId(id);
+        films.put(id, film);
         return film;
     }
 
     @Override
     public Film update(Film film) {
-        if (!films.containsKey(film.getId())) {
+        if (film.getId() == null || !films.containsKey(film.getId())) {
             throw new NotFoundException("Фильм с id=" + film.getId() + " не найден");
         }
 
@@ -34,6 +39,13 @@ public class InMemoryFilmStorage implements FilmStorage {
         return existingFilm;
     }
 
+    @Override
+    public Film save(Film film) {
+        films.put(film.getId(), film);
+        currentId.accumulateAndGet(film.getId() + 1, Math::max);
+        return film;
+    }
+
     @Override
     public List<Film> findAll() {
         return new ArrayList<>(films.values());
@@ -41,11 +53,16 @@ public class InMemoryFilmStorage implements FilmStorage {
 
     @Override
     public Optional<Film> findById(Long id) {
-        return Optional.ofNullable(films.get(id));
+        return id == null ? Optional.empty() : Optional.ofNullable(films.get(id));
     }
 
     @Override
     public void delete(Long id) {
         films.remove(id);
     }
+
+    @Override
+    public void forEachId(LongConsumer action) {
+        films.keySet().forEach(action::accept);
+    }
 }
\ No newline at end of file
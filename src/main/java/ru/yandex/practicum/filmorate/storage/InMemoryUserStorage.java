@@ -1,27 +1,32 @@
 package ru.yandex.practicum.filmorate.storage;
 
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
 
 @Component
+@ConditionalOnProperty(name = "filmorate.storage.type", havingValue = "in-memory", matchIfMissing = true)
 public class InMemoryUserStorage implements UserStorage {
-    private final Map<Long, User> users = new HashMap<>();
-    private long currentId = 1L;
+    private final Map<Long, User> users = new ConcurrentHashMap<>();
+    private final AtomicLong currentId = new AtomicLong(1L);
 
     @Override
     public User create(User user) {
-        user.setId(currentId);
-        users.put(currentId, user);
-        currentId++;
+        long id = currentId.getAndIncrement();
+        user.setId(id);
+        users.put(id, user);
         return user;
     }
 
     @Override
     public User update(User user) {
-        if (!users.containsKey(user.getId())) {
+        if (user.getId() == null || !users.containsKey(user.getId())) {
             throw new NotFoundException("Пользователь с id=" + user.getId() + " не найден");
         }
 
@@ -34,6 +39,13 @@ public class InMemoryUserStorage implements UserStorage {
         return existingUser;
     }
 
+    @Override
+    public User save(User user) {
+        users.put(user.getId(), user);
+        currentId.accumulateAndGet(user.getId() + 1, Math::max);
+        return user;
+    }
+
     @Override
     public List<User> findAll() {
         return new ArrayList<>(users.values());
@@ -41,11 +53,21 @@ public class InMemoryUserStorage implements UserStorage {
 
     @Override
     public Optional<User> findById(Long id) {
-        return Optional.ofNullable(users.get(id));
+        return id == null ? Optional.empty() : Optional.ofNullable(users.get(id));
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return id != null && users.containsKey(id);
     }
 
     @Override
     public void delete(Long id) {
         users.remove(id);
     }
+
+    @Override
+    public void forEachId(LongConsumer action) {
+        users.keySet().forEach(action::accept);
+    }
 }
\ No newline at end of file
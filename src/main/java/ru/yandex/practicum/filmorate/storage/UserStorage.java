@@ -2,17 +2,40 @@
 package ru.yandex.practicum.filmorate.storage;
 
 import ru.yandex.practicum.filmorate.model.User;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.LongConsumer;
 
 public interface UserStorage {
     User create(User user);
 
     User update(User user);
 
+    // Сохраняет пользователя с уже заданным id целиком, включая друзей (применение реплицированных изменений)
+    User save(User user);
+
     List<User> findAll();
 
     Optional<User> findById(Long id);
 
     void delete(Long id);
-}
\ No newline at end of file
+
+    // Проверка без декодирования пользователя там, где хранилище это умеет
+    default boolean existsById(Long id) {
+        return findById(id).isPresent();
+    }
+
+    // Обход id без построения списка сущностей: постоянные хранилища при этом ничего не декодируют
+    default void forEachId(LongConsumer action) {
+        findAll().forEach(user -> action.accept(user.getId()));
+    }
+
+    // Отсутствующие id пропускаются, порядок - как в ids
+    default List<User> findAllById(Collection<Long> ids) {
+        return ids.stream()
+                .map(this::findById)
+                .flatMap(Optional::stream)
+                .toList();
+    }
+}
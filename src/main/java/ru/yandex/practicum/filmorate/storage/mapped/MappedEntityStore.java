@@ -0,0 +1,509 @@
+package ru.yandex.practicum.filmorate.storage.mapped;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.yandex.practicum.filmorate.storage.offheap.EntityCodec;
+import ru.yandex.practicum.filmorate.storage.offheap.OffsetIndex;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/*
+ * Сущности и связи (лайки, друзья) пишутся в два отдельных журнала. Если при обновлении изменились
+ * только связи, в журнал связей уходят короткие записи добавления/удаления, а сама сущность не переписывается.
+ * В куче живут только индекс id -> адрес последней записи сущности и связи, накопленные после неё.
+ * Сжатие переписывает живые сущности вместе со связями в новое поколение файлов, не останавливая запись:
+ * блокировка записи берётся только на перезапись изменённых за время копирования id и смену поколения.
+ */
+@Slf4j
+public class MappedEntityStore<T> implements AutoCloseable {
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+    private static final byte EDGE_ADD = 3;
+    private static final byte EDGE_REMOVE = 4;
+    private static final int COMPACTION_BATCH = 1024;
+
+    private final Path directory;
+    private final String name;
+    private final int segmentSize;
+    private final EntityCodec<T> codec;
+    private final Function<T, Set<Long>> edgeGetter;
+    private final BiConsumer<T, Set<Long>> edgeSetter;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ByteBuffer edgePayload = ByteBuffer.allocate(Long.BYTES);
+    private ByteBuffer scratch = ByteBuffer.allocate(1024);
+
+    private int generation;
+    private MappedLog entityLog;
+    private MappedLog edgeLog;
+    private OffsetIndex index = new OffsetIndex();
+    private OffsetIndex putSequences = new OffsetIndex();
+    private Map<Long, EdgeDelta> pendingEdges = new HashMap<>();
+    private long nextId = 1L;
+    private long nextSeq = 1L;
+    private long writtenBytes;
+    private long liveBytes;
+    private long edgeRecords;
+    private BitSet changedDuringCompaction;
+
+    public MappedEntityStore(Path directory, String name, int segmentSize, EntityCodec<T> codec,
+                             Function<T, Set<Long>> edgeGetter, BiConsumer<T, Set<Long>> edgeSetter) {
+        this.directory = directory;
+        this.name = name;
+        this.segmentSize = segmentSize;
+        this.codec = codec;
+        this.edgeGetter = edgeGetter;
+        this.edgeSetter = edgeSetter;
+        open();
+    }
+
+    public long nextId() {
+        lock.writeLock().lock();
+        try {
+            return nextId++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void put(T entity) {
+        lock.writeLock().lock();
+        try {
+            long id = codec.id(entity);
+            markChanged(id);
+            long address = index.get(id);
+            if (address != OffsetIndex.ABSENT && appendEdgeChanges(id, address, entity)) {
+                return;
+            }
+            appendEntity(id, entity);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Optional<T> get(long id) {
+        lock.readLock().lock();
+        try {
+            long address = index.get(id);
+            return address == OffsetIndex.ABSENT ? Optional.empty() : Optional.of(read(id, address));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean contains(long id) {
+        lock.readLock().lock();
+        try {
+            return index.get(id) != OffsetIndex.ABSENT;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<T> values() {
+        lock.readLock().lock();
+        try {
+            List<T> values = new ArrayList<>(index.size());
+            for (int id = 0; id < index.capacity(); id++) {
+                long address = index.get(id);
+                if (address != OffsetIndex.ABSENT) {
+                    values.add(read(id, address));
+                }
+            }
+            return values;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // id собираются порциями под блокировкой чтения, а action вызывается уже без неё
+    public void forEachId(LongConsumer action) {
+        long[] batch = new long[1024];
+        for (int from = 0; ; from += batch.length) {
+            int count = 0;
+            lock.readLock().lock();
+            try {
+                if (from >= index.capacity()) {
+                    return;
+                }
+                int to = Math.min(from + batch.length, index.capacity());
+                for (int id = from; id < to; id++) {
+                    if (index.get(id) != OffsetIndex.ABSENT) {
+                        batch[count++] = id;
+                    }
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            for (int i = 0; i < count; i++) {
+                action.accept(batch[i]);
+            }
+        }
+    }
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            markChanged(id);
+            long address = index.remove(id);
+            if (address != OffsetIndex.ABSENT) {
+                liveBytes -= MappedLog.recordLength(entityLog.segment(address), address);
+                putSequences.remove(id);
+                pendingEdges.remove(id);
+                writtenBytes += MappedLog.HEADER_SIZE;
+                entityLog.append(DELETE, nextSeq++, id, scratch, 0);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean needsCompaction(double maxGarbageRatio, long maxEdgeRecords) {
+        lock.readLock().lock();
+        try {
+            double garbage = writtenBytes == 0 ? 0 : (double) (writtenBytes - liveBytes) / writtenBytes;
+            return (garbage > maxGarbageRatio && writtenBytes > segmentSize) || edgeRecords > maxEdgeRecords;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Живые записи копируются порциями под блокировкой чтения, поэтому запись идёт параллельно. Изменённые
+    // за это время id отмечаются и под короткой блокировкой записи переписываются заново перед сменой поколения
+    public synchronized void compact() {
+        long started = System.nanoTime();
+        int newGeneration;
+        lock.writeLock().lock();
+        try {
+            newGeneration = generation + 1;
+            changedDuringCompaction = new BitSet();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        deleteGeneration(newGeneration);
+        MappedLog newEntityLog = new MappedLog(directory, prefix(newGeneration, "entities"), segmentSize);
+        MappedLog newEdgeLog = new MappedLog(directory, prefix(newGeneration, "edges"), segmentSize);
+        OffsetIndex newIndex = new OffsetIndex();
+        OffsetIndex newPutSequences = new OffsetIndex();
+        ByteBuffer buffer = ByteBuffer.allocate(scratch.capacity());
+        long newBytes = 0;
+        long newGarbage = 0;
+        boolean switched = false;
+        try {
+            for (int from = 0; ; from += COMPACTION_BATCH) {
+                lock.readLock().lock();
+                try {
+                    if (from >= index.capacity()) {
+                        break;
+                    }
+                    int to = Math.min(from + COMPACTION_BATCH, index.capacity());
+                    for (int id = from; id < to; id++) {
+                        long address = index.get(id);
+                        if (address != OffsetIndex.ABSENT) {
+                            buffer = encode(read(id, address), buffer);
+                            newBytes += copy(id, buffer, newEntityLog, newIndex, newPutSequences);
+                        }
+                    }
+                } finally {
+                    lock.readLock().unlock();
+                }
+            }
+
+            lock.writeLock().lock();
+            try {
+                BitSet changed = changedDuringCompaction;
+                for (int id = changed.nextSetBit(0); id >= 0; id = changed.nextSetBit(id + 1)) {
+                    long previous = newIndex.get(id);
+                    if (previous != OffsetIndex.ABSENT) {
+                        int length = MappedLog.recordLength(newEntityLog.segment(previous), previous);
+                        newBytes -= length;
+                        newGarbage += length;
+                    }
+                    long address = index.get(id);
+                    if (address != OffsetIndex.ABSENT) {
+                        buffer = encode(read(id, address), buffer);
+                        newBytes += copy(id, buffer, newEntityLog, newIndex, newPutSequences);
+                    } else if (previous != OffsetIndex.ABSENT) {
+                        newIndex.remove(id);
+                        newPutSequences.remove(id);
+                        newEntityLog.append(DELETE, nextSeq++, id, buffer, 0);
+                        newGarbage += MappedLog.HEADER_SIZE;
+                    }
+                }
+                newEntityLog.force();
+                writeGeneration(newGeneration, nextId);
+
+                entityLog.close();
+                edgeLog.close();
+                deleteGeneration(generation);
+                generation = newGeneration;
+                entityLog = newEntityLog;
+                edgeLog = newEdgeLog;
+                index = newIndex;
+                putSequences = newPutSequences;
+                pendingEdges = new HashMap<>();
+                writtenBytes = newBytes + newGarbage;
+                liveBytes = newBytes;
+                edgeRecords = 0;
+                switched = true;
+                log.info("Журнал {} сжат до {} записей за {} мс, во время сжатия изменено {}", name, index.size(),
+                        (System.nanoTime() - started) / 1_000_000, changed.cardinality());
+            } finally {
+                changedDuringCompaction = null;
+                lock.writeLock().unlock();
+            }
+        } finally {
+            if (!switched) {
+                newEntityLog.close();
+                newEdgeLog.close();
+                deleteGeneration(newGeneration);
+            }
+        }
+    }
+
+    public void force() {
+        lock.readLock().lock();
+        try {
+            entityLog.force();
+            edgeLog.force();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            entityLog.close();
+            edgeLog.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // При старте сущности не декодируются: восстанавливаются только индекс адресов и связи после последней записи
+    private void open() {
+        long[] state = readGeneration();
+        generation = (int) state[0];
+        nextId = state[1];
+        try (Stream<Path> files = Files.list(Files.createDirectories(directory))) {
+            String current = prefix(generation, "");
+            files.filter(path -> path.getFileName().toString().startsWith(name + "-g"))
+                    .filter(path -> !path.getFileName().toString().startsWith(current))
+                    .forEach(MappedEntityStore::deleteQuietly);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось прочитать каталог " + directory, e);
+        }
+        long started = System.nanoTime();
+        entityLog = new MappedLog(directory, prefix(generation, "entities"), segmentSize);
+        edgeLog = new MappedLog(directory, prefix(generation, "edges"), segmentSize);
+        entityLog.scan((type, seq, id, segment, payloadOffset, payloadLength, address) -> {
+            writtenBytes += MappedLog.HEADER_SIZE + payloadLength;
+            long previous = type == PUT ? index.put(id, address) : index.remove(id);
+            if (previous != OffsetIndex.ABSENT) {
+                liveBytes -= MappedLog.recordLength(entityLog.segment(previous), previous);
+            }
+            if (type == PUT) {
+                liveBytes += MappedLog.HEADER_SIZE + payloadLength;
+                putSequences.put(id, seq);
+            } else {
+                putSequences.remove(id);
+            }
+            nextId = Math.max(nextId, id + 1);
+            nextSeq = Math.max(nextSeq, seq + 1);
+        });
+        edgeLog.scan((type, seq, id, segment, payloadOffset, payloadLength, address) -> {
+            edgeRecords++;
+            nextSeq = Math.max(nextSeq, seq + 1);
+            if (index.get(id) != OffsetIndex.ABSENT && seq > putSequences.get(id)) {
+                applyEdge(id, type, segment.getLong(payloadOffset));
+            }
+        });
+        log.info("Журнал {} открыт: {} записей, {} отложенных связей, {} мс", name, index.size(),
+                edgeRecords, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private void markChanged(long id) {
+        if (changedDuringCompaction != null) {
+            changedDuringCompaction.set(Math.toIntExact(id));
+        }
+    }
+
+    private boolean appendEdgeChanges(long id, long address, T entity) {
+        T current = read(id, address);
+        Set<Long> currentEdges = edgeGetter.apply(current);
+        Set<Long> newEdges = edgeGetter.apply(entity);
+        // Сравниваем всё, кроме связей: если поля не менялись, достаточно дописать разницу в связях
+        edgeSetter.accept(current, newEdges);
+        if (newEdges == null || !current.equals(entity)) {
+            return false;
+        }
+        for (Long edge : newEdges) {
+            if (!currentEdges.contains(edge)) {
+                appendEdge(id, EDGE_ADD, edge);
+            }
+        }
+        for (Long edge : currentEdges) {
+            if (!newEdges.contains(edge)) {
+                appendEdge(id, EDGE_REMOVE, edge);
+            }
+        }
+        return true;
+    }
+
+    private void appendEdge(long id, byte type, long edge) {
+        edgePayload.clear();
+        edgePayload.putLong(edge);
+        edgeLog.append(type, nextSeq++, id, edgePayload, Long.BYTES);
+        edgeRecords++;
+        applyEdge(id, type, edge);
+    }
+
+    private void appendEntity(long id, T entity) {
+        int length = encode(entity);
+        long seq = nextSeq++;
+        long previous = index.put(id, entityLog.append(PUT, seq, id, scratch, length));
+        if (previous != OffsetIndex.ABSENT) {
+            liveBytes -= MappedLog.recordLength(entityLog.segment(previous), previous);
+        }
+        putSequences.put(id, seq);
+        pendingEdges.remove(id);
+        writtenBytes += MappedLog.HEADER_SIZE + length;
+        liveBytes += MappedLog.HEADER_SIZE + length;
+        nextId = Math.max(nextId, id + 1);
+    }
+
+    private void applyEdge(long id, byte type, long edge) {
+        EdgeDelta delta = pendingEdges.computeIfAbsent(id, key -> new EdgeDelta());
+        if (type == EDGE_ADD) {
+            delta.removed.remove(edge);
+            delta.added.add(edge);
+        } else {
+            delta.added.remove(edge);
+            delta.removed.add(edge);
+        }
+    }
+
+    private T read(long id, long address) {
+        T entity = codec.decode(entityLog.segment(address), MappedLog.payloadOffset(address));
+        EdgeDelta delta = pendingEdges.get(id);
+        if (delta != null) {
+            Set<Long> edges = edgeGetter.apply(entity);
+            edges.removeAll(delta.removed);
+            edges.addAll(delta.added);
+        }
+        return entity;
+    }
+
+    private int encode(T entity) {
+        scratch = encode(entity, scratch);
+        return scratch.position();
+    }
+
+    // Возвращает буфер с закодированной сущностью; если она не поместилась, буфер заменяется вдвое большим
+    private ByteBuffer encode(T entity, ByteBuffer buffer) {
+        while (true) {
+            buffer.clear();
+            try {
+                codec.encode(entity, buffer);
+                return buffer;
+            } catch (BufferOverflowException e) {
+                buffer = ByteBuffer.allocate(buffer.capacity() * 2);
+            }
+        }
+    }
+
+    private long copy(long id, ByteBuffer payload, MappedLog target, OffsetIndex targetIndex,
+                      OffsetIndex targetSequences) {
+        int length = payload.position();
+        long seq = nextSeq++;
+        targetIndex.put(id, target.append(PUT, seq, id, payload, length));
+        targetSequences.put(id, seq);
+        return MappedLog.HEADER_SIZE + length;
+    }
+
+    private String prefix(int generation, String kind) {
+        return name + "-g" + generation + "-" + kind;
+    }
+
+    private Path generationFile() {
+        return directory.resolve(name + ".generation");
+    }
+
+    // Файл поколения хранит и границу выданных id: сжатие выбрасывает записи удалений, и без неё
+    // удалённые старшие id после перезапуска выдавались бы повторно
+    private long[] readGeneration() {
+        try {
+            Path file = generationFile();
+            if (!Files.exists(file)) {
+                return new long[]{0, 1L};
+            }
+            String[] parts = Files.readString(file).trim().split("\\s+");
+            return new long[]{Integer.parseInt(parts[0]), parts.length > 1 ? Long.parseLong(parts[1]) : 1L};
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось прочитать поколение журнала " + name, e);
+        }
+    }
+
+    // Новое поколение становится текущим атомарным переименованием, поэтому падение посреди сжатия безопасно
+    private void writeGeneration(int newGeneration, long highWaterId) {
+        try {
+            Path temp = directory.resolve(name + ".generation.tmp");
+            Files.writeString(temp, newGeneration + " " + highWaterId);
+            Files.move(temp, generationFile(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось записать поколение журнала " + name, e);
+        }
+    }
+
+    private void deleteGeneration(int oldGeneration) {
+        String oldPrefix = prefix(oldGeneration, "");
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(path -> path.getFileName().toString().startsWith(oldPrefix))
+                    .forEach(MappedEntityStore::deleteQuietly);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось прочитать каталог " + directory, e);
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Не удалось удалить устаревший файл {}: {}", path, e.getMessage());
+        }
+    }
+
+    private static class EdgeDelta {
+        private final Set<Long> added = new HashSet<>();
+        private final Set<Long> removed = new HashSet<>();
+    }
+}
@@ -0,0 +1,90 @@
+package ru.yandex.practicum.filmorate.storage.mapped;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.offheap.FilmCodec;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+
+@Component
+@ConditionalOnProperty(name = "filmorate.storage.type", havingValue = "mapped")
+public class MappedFilmStorage implements FilmStorage {
+    private final MappedEntityStore<Film> store;
+    private final ScheduledExecutorService maintenance;
+
+    public MappedFilmStorage(@Value("${filmorate.storage.mapped.directory:data}") Path directory,
+                             @Value("${filmorate.storage.mapped.segment-size:67108864}") int segmentSize,
+                             @Value("${filmorate.storage.mapped.flush-interval-ms:1000}") long flushIntervalMillis,
+                             @Value("${filmorate.storage.mapped.compaction.garbage-ratio:0.5}") double garbageRatio,
+                             @Value("${filmorate.storage.mapped.compaction.max-edge-records:1000000}")
+                             long maxEdgeRecords) {
+        this.store = new MappedEntityStore<>(directory, "films", segmentSize, new FilmCodec(),
+                Film::getLikes, Film::setLikes);
+        this.maintenance = MappedStorageMaintenance.start("films", store, flushIntervalMillis, garbageRatio,
+                maxEdgeRecords);
+    }
+
+    @Override
+    public Film create(Film film) {
+        film.setId(store.nextId());
+        store.put(film);
+        return film;
+    }
+
+    // Если изменились только лайки, в журнал пишутся лишь они
+    @Override
+    public Film update(Film film) {
+        if (film.getId() == null || !store.contains(film.getId())) {
+            throw new NotFoundException("Фильм с id=" + film.getId() + " не найден");
+        }
+        store.put(film);
+        return film;
+    }
+
+    @Override
+    public Film save(Film film) {
+        store.put(film);
+        return film;
+    }
+
+    @Override
+    public List<Film> findAll() {
+        return store.values();
+    }
+
+    @Override
+    public Optional<Film> findById(Long id) {
+        return id == null ? Optional.empty() : store.get(id);
+    }
+
+    @Override
+    public void delete(Long id) {
+        store.remove(id);
+    }
+
+    @Override
+    public void forEachId(LongConsumer action) {
+        store.forEachId(action);
+    }
+
+    @PreDestroy
+    public void close() {
+        maintenance.shutdownNow();
+        try {
+            maintenance.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        store.close();
+    }
+}
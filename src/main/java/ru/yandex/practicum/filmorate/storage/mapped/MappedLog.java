@@ -0,0 +1,141 @@
+package ru.yandex.practicum.filmorate.storage.mapped;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Журнал только на добавление из отображённых в память сегментов одинакового размера.
+ * Запись: [int длина всей записи][byte тип][long seq][long id][данные].
+ * Длина пишется последней, поэтому недописанная при падении запись выглядит как конец журнала.
+ */
+public class MappedLog implements AutoCloseable {
+    public static final int HEADER_SIZE = Integer.BYTES + Byte.BYTES + Long.BYTES + Long.BYTES;
+
+    private final Path directory;
+    private final String prefix;
+    private final int segmentSize;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private int writePosition;
+
+    public MappedLog(Path directory, String prefix, int segmentSize) {
+        this.directory = directory;
+        this.prefix = prefix;
+        this.segmentSize = segmentSize;
+        try {
+            Files.createDirectories(directory);
+            for (int index = 0; Files.exists(segmentPath(index)); index++) {
+                segments.add(map(segmentPath(index), Files.size(segmentPath(index))));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось открыть журнал " + prefix, e);
+        }
+    }
+
+    // Проходит по всем записям и запоминает, где остановился, чтобы дописывать после последней
+    public void scan(RecordVisitor visitor) {
+        writePosition = 0;
+        for (int index = 0; index < segments.size(); index++) {
+            MappedByteBuffer segment = segments.get(index);
+            int position = 0;
+            while (position + HEADER_SIZE <= segment.capacity()) {
+                int length = segment.getInt(position);
+                if (length < HEADER_SIZE || position + length > segment.capacity()) {
+                    break;
+                }
+                visitor.visit(segment.get(position + Integer.BYTES), segment.getLong(position + 5),
+                        segment.getLong(position + 13), segment, position + HEADER_SIZE, length - HEADER_SIZE,
+                        address(index, position));
+                position += length;
+            }
+            writePosition = position;
+        }
+    }
+
+    public long append(byte type, long seq, long id, ByteBuffer payload, int payloadLength) {
+        int length = HEADER_SIZE + payloadLength;
+        MappedByteBuffer segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        if (segment == null || writePosition + length > segment.capacity()) {
+            segment = openSegment(Math.max(segmentSize, length));
+            writePosition = 0;
+        }
+        int position = writePosition;
+        segment.put(position + Integer.BYTES, type);
+        segment.putLong(position + 5, seq);
+        segment.putLong(position + 13, id);
+        if (payloadLength > 0) {
+            segment.put(position + HEADER_SIZE, payload, 0, payloadLength);
+        }
+        segment.putInt(position, length);
+        writePosition += length;
+        return address(segments.size() - 1, position);
+    }
+
+    public ByteBuffer segment(long address) {
+        return segments.get((int) (address >>> 32));
+    }
+
+    public static int payloadOffset(long address) {
+        return (int) address + HEADER_SIZE;
+    }
+
+    public static int recordLength(ByteBuffer segment, long address) {
+        return segment.getInt((int) address);
+    }
+
+    public long sizeBytes() {
+        long size = 0;
+        for (MappedByteBuffer segment : segments) {
+            size += segment.capacity();
+        }
+        return size;
+    }
+
+    public void force() {
+        segments.forEach(MappedByteBuffer::force);
+    }
+
+    @Override
+    public void close() {
+        force();
+        segments.clear();
+    }
+
+    private MappedByteBuffer openSegment(int size) {
+        try {
+            MappedByteBuffer segment = map(segmentPath(segments.size()), size);
+            segments.add(segment);
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось создать сегмент журнала " + prefix, e);
+        }
+    }
+
+    private Path segmentPath(int index) {
+        return directory.resolve(String.format("%s-%05d.seg", prefix, index));
+    }
+
+    private static MappedByteBuffer map(Path path, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    private static long address(int segmentIndex, int position) {
+        return ((long) segmentIndex << 32) | position;
+    }
+
+    @FunctionalInterface
+    public interface RecordVisitor {
+        void visit(byte type, long seq, long id, ByteBuffer segment, int payloadOffset, int payloadLength,
+                   long address);
+    }
+}
@@ -0,0 +1,35 @@
+package ru.yandex.practicum.filmorate.storage.mapped;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Фоновый сброс страниц на диск и сжатие журналов
+@Slf4j
+final class MappedStorageMaintenance {
+
+    private MappedStorageMaintenance() {
+    }
+
+    static ScheduledExecutorService start(String name, MappedEntityStore<?> store, long flushIntervalMillis,
+                                          double garbageRatio, long maxEdgeRecords) {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "mapped-storage-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                store.force();
+                if (store.needsCompaction(garbageRatio, maxEdgeRecords)) {
+                    store.compact();
+                }
+            } catch (RuntimeException e) {
+                log.error("Ошибка обслуживания журнала {}: {}", name, e.getMessage(), e);
+            }
+        }, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        return executor;
+    }
+}
@@ -0,0 +1,95 @@
+package ru.yandex.practicum.filmorate.storage.mapped;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+import ru.yandex.practicum.filmorate.storage.offheap.UserCodec;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+
+@Component
+@ConditionalOnProperty(name = "filmorate.storage.type", havingValue = "mapped")
+public class MappedUserStorage implements UserStorage {
+    private final MappedEntityStore<User> store;
+    private final ScheduledExecutorService maintenance;
+
+    public MappedUserStorage(@Value("${filmorate.storage.mapped.directory:data}") Path directory,
+                             @Value("${filmorate.storage.mapped.segment-size:67108864}") int segmentSize,
+                             @Value("${filmorate.storage.mapped.flush-interval-ms:1000}") long flushIntervalMillis,
+                             @Value("${filmorate.storage.mapped.compaction.garbage-ratio:0.5}") double garbageRatio,
+                             @Value("${filmorate.storage.mapped.compaction.max-edge-records:1000000}")
+                             long maxEdgeRecords) {
+        this.store = new MappedEntityStore<>(directory, "users", segmentSize, new UserCodec(),
+                User::getFriends, User::setFriends);
+        this.maintenance = MappedStorageMaintenance.start("users", store, flushIntervalMillis, garbageRatio,
+                maxEdgeRecords);
+    }
+
+    @Override
+    public User create(User user) {
+        user.setId(store.nextId());
+        store.put(user);
+        return user;
+    }
+
+    // Если изменились только друзья, в журнал пишутся лишь они
+    @Override
+    public User update(User user) {
+        if (user.getId() == null || !store.contains(user.getId())) {
+            throw new NotFoundException("Пользователь с id=" + user.getId() + " не найден");
+        }
+        store.put(user);
+        return user;
+    }
+
+    @Override
+    public User save(User user) {
+        store.put(user);
+        return user;
+    }
+
+    @Override
+    public List<User> findAll() {
+        return store.values();
+    }
+
+    @Override
+    public Optional<User> findById(Long id) {
+        return id == null ? Optional.empty() : store.get(id);
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return id != null && store.contains(id);
+    }
+
+    @Override
+    public void delete(Long id) {
+        store.remove(id);
+    }
+
+    @Override
+    public void forEachId(LongConsumer action) {
+        store.forEachId(action);
+    }
+
+    @PreDestroy
+    public void close() {
+        maintenance.shutdownNow();
+        try {
+            maintenance.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        store.close();
+    }
+}
@@ -0,0 +1,92 @@
+package ru.yandex.practicum.filmorate.storage.offheap;
+
+import ru.yandex.practicum.filmorate.model.IdSets;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Set;
+
+final class BinaryFields {
+    static final long NULL_DATE = Long.MIN_VALUE;
+    static final int NULL_LENGTH = -1;
+
+    private BinaryFields() {
+    }
+
+    static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    static void putString(ByteBuffer target, byte[] bytes) {
+        if (bytes == null) {
+            target.putInt(NULL_LENGTH);
+        } else {
+            target.putInt(bytes.length);
+            target.put(bytes);
+        }
+    }
+
+    static void putDate(ByteBuffer target, LocalDate date) {
+        target.putLong(date == null ? NULL_DATE : date.toEpochDay());
+    }
+
+    static void putIdSet(ByteBuffer target, Set<Long> ids) {
+        if (ids == null) {
+            target.putInt(0);
+            return;
+        }
+        target.putInt(ids.size());
+        for (Long id : ids) {
+            target.putLong(id);
+        }
+    }
+
+    // Чтение идёт курсором по абсолютным смещениям, чтобы один буфер могли читать несколько потоков
+    static final class Reader {
+        private final ByteBuffer source;
+        private int position;
+
+        Reader(ByteBuffer source, int position) {
+            this.source = source;
+            this.position = position;
+        }
+
+        long readLong() {
+            long value = source.getLong(position);
+            position += Long.BYTES;
+            return value;
+        }
+
+        int readInt() {
+            int value = source.getInt(position);
+            position += Integer.BYTES;
+            return value;
+        }
+
+        String readString() {
+            int length = readInt();
+            if (length == NULL_LENGTH) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            source.get(position, bytes);
+            position += length;
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        LocalDate readDate() {
+            long epochDay = readLong();
+            return epochDay == NULL_DATE ? null : LocalDate.ofEpochDay(epochDay);
+        }
+
+        Set<Long> readIdSet() {
+            int size = readInt();
+            Set<Long> ids = IdSets.newSet(size);
+            for (int i = 0; i < size; i++) {
+                ids.add(readLong());
+            }
+            return ids;
+        }
+    }
+}
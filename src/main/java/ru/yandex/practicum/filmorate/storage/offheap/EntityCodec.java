@@ -0,0 +1,12 @@
+package ru.yandex.practicum.filmorate.storage.offheap;
+
+import java.nio.ByteBuffer;
+
+// Компактное бинарное представление сущности; encode пишет с текущей position, decode читает по абсолютным смещениям и не двигает position
+public interface EntityCodec<T> {
+    void encode(T entity, ByteBuffer target);
+
+    T decode(ByteBuffer source, int offset);
+
+    long id(T entity);
+}
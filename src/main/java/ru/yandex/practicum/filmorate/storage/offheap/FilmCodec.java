@@ -0,0 +1,39 @@
+package ru.yandex.practicum.filmorate.storage.offheap;
+
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.nio.ByteBuffer;
+
+// id | releaseDate | duration | name | description | likes
+public class FilmCodec implements EntityCodec<Film> {
+    private static final int NULL_DURATION = Integer.MIN_VALUE;
+
+    @Override
+    public void encode(Film film, ByteBuffer target) {
+        target.putLong(film.getId());
+        BinaryFields.putDate(target, film.getReleaseDate());
+        target.putInt(film.getDuration() == null ? NULL_DURATION : film.getDuration());
+        BinaryFields.putString(target, BinaryFields.utf8(film.getName()));
+        BinaryFields.putString(target, BinaryFields.utf8(film.getDescription()));
+        BinaryFields.putIdSet(target, film.getLikes());
+    }
+
+    @Override
+    public Film decode(ByteBuffer source, int offset) {
+        BinaryFields.Reader reader = new BinaryFields.Reader(source, offset);
+        Film film = new Film();
+        film.setId(reader.readLong());
+        film.setReleaseDate(reader.readDate());
+        int duration = reader.readInt();
+        film.setDuration(duration == NULL_DURATION ? null : duration);
+        film.setName(reader.readString());
+        film.setDescription(reader.readString());
+        film.setLikes(reader.readIdSet());
+        return film;
+    }
+
+    @Override
+    public long id(Film film) {
+        return film.getId();
+    }
+}
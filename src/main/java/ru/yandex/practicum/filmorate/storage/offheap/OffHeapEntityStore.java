@@ -0,0 +1,282 @@
+package ru.yandex.practicum.filmorate.storage.offheap;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongConsumer;
+
+/*
+ * Сущности хранятся в direct-буферах вне кучи, в куче остаётся только индекс id -> адрес.
+ * Запись: [int capacity][int length][long id][данные]. Если обновлённая запись не помещается в свой слот,
+ * она переезжает в новый слот с запасом в полтора раза, старый слот становится мусором.
+ *
+ * Мусор считается по чанкам. Когда в заполненном чанке мусора становится больше garbageRatio от занятого места,
+ * его живые записи (те, на которые ещё указывает индекс) переносятся в текущий чанк, а сам чанк освобождается
+ * и его номер достаётся следующему новому чанку. Перенос идёт под той же блокировкой записи, что и изменение;
+ * каждый перенос освобождает не меньше доли garbageRatio чанка, поэтому его цена растёт с объёмом мусора.
+ */
+public class OffHeapEntityStore<T> {
+    private static final int HEADER_SIZE = Integer.BYTES * 2 + Long.BYTES;
+    private static final int MIN_SLOT_SIZE = 32;
+
+    private final EntityCodec<T> codec;
+    private final int chunkSize;
+    private final double garbageRatio;
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    private final ArrayDeque<Integer> freeChunks = new ArrayDeque<>();
+    private long[] chunkGarbage = new long[16];
+    private int active = -1;
+    private boolean compacting;
+    private final OffsetIndex index = new OffsetIndex();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private ByteBuffer scratch = ByteBuffer.allocate(1024);
+    private long allocatedBytes;
+    private long garbageBytes;
+    private long nextId = 1L;
+
+    public OffHeapEntityStore(EntityCodec<T> codec, int chunkSize, double garbageRatio) {
+        this.codec = codec;
+        this.chunkSize = chunkSize;
+        this.garbageRatio = garbageRatio;
+    }
+
+    public long nextId() {
+        lock.writeLock().lock();
+        try {
+            return nextId++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void put(T entity) {
+        lock.writeLock().lock();
+        try {
+            long id = codec.id(entity);
+            int length = encode(entity);
+            long address = index.get(id);
+            if (address != OffsetIndex.ABSENT) {
+                ByteBuffer chunk = chunk(address);
+                int offset = offset(address);
+                int capacity = chunk.getInt(offset);
+                if (length <= capacity) {
+                    write(chunk, offset, capacity, length, id, scratch, 0);
+                    return;
+                }
+                length = Math.max(length, length + (length >> 1));
+            }
+            index.put(id, allocate(id, Math.max(MIN_SLOT_SIZE, length), scratch, 0, encodedLength()));
+            if (address != OffsetIndex.ABSENT) {
+                markGarbage(address);
+            }
+            if (id >= nextId) {
+                nextId = id + 1;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Optional<T> get(long id) {
+        lock.readLock().lock();
+        try {
+            long address = index.get(id);
+            if (address == OffsetIndex.ABSENT) {
+                return Optional.empty();
+            }
+            return Optional.of(codec.decode(chunk(address), offset(address) + HEADER_SIZE));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean contains(long id) {
+        lock.readLock().lock();
+        try {
+            return index.get(id) != OffsetIndex.ABSENT;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<T> values() {
+        lock.readLock().lock();
+        try {
+            List<T> values = new ArrayList<>(index.size());
+            for (int id = 0; id < index.capacity(); id++) {
+                long address = index.get(id);
+                if (address != OffsetIndex.ABSENT) {
+                    values.add(codec.decode(chunk(address), offset(address) + HEADER_SIZE));
+                }
+            }
+            return values;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // id собираются порциями под блокировкой чтения, а action вызывается уже без неё
+    public void forEachId(LongConsumer action) {
+        long[] batch = new long[1024];
+        for (int from = 0; ; from += batch.length) {
+            int count = 0;
+            lock.readLock().lock();
+            try {
+                if (from >= index.capacity()) {
+                    return;
+                }
+                int to = Math.min(from + batch.length, index.capacity());
+                for (int id = from; id < to; id++) {
+                    if (index.get(id) != OffsetIndex.ABSENT) {
+                        batch[count++] = id;
+                    }
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            for (int i = 0; i < count; i++) {
+                action.accept(batch[i]);
+            }
+        }
+    }
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            long address = index.remove(id);
+            if (address != OffsetIndex.ABSENT) {
+                markGarbage(address);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    public long getGarbageBytes() {
+        return garbageBytes;
+    }
+
+    private int encodedLength() {
+        return scratch.position();
+    }
+
+    private int encode(T entity) {
+        while (true) {
+            scratch.clear();
+            try {
+                codec.encode(entity, scratch);
+                return scratch.position();
+            } catch (BufferOverflowException e) {
+                scratch = ByteBuffer.allocate(scratch.capacity() * 2);
+            }
+        }
+    }
+
+    private long allocate(long id, int capacity, ByteBuffer source, int sourceOffset, int length) {
+        int slotSize = HEADER_SIZE + capacity;
+        ByteBuffer chunk = active < 0 ? null : chunks.get(active);
+        if (chunk == null || chunk.remaining() < slotSize) {
+            int sealed = active;
+            active = newChunk(Math.max(chunkSize, slotSize));
+            chunk = chunks.get(active);
+            if (sealed >= 0 && !compacting && needsCompaction(sealed)) {
+                compactChunk(sealed);
+            }
+        }
+        int offset = chunk.position();
+        chunk.position(offset + slotSize);
+        write(chunk, offset, capacity, length, id, source, sourceOffset);
+        return ((long) active << 32) | offset;
+    }
+
+    private int newChunk(int size) {
+        ByteBuffer chunk = ByteBuffer.allocateDirect(size);
+        Integer free = freeChunks.poll();
+        int number = free != null ? free : chunks.size();
+        if (free != null) {
+            chunks.set(number, chunk);
+        } else {
+            chunks.add(chunk);
+        }
+        if (number >= chunkGarbage.length) {
+            chunkGarbage = Arrays.copyOf(chunkGarbage, chunkGarbage.length * 2);
+        }
+        chunkGarbage[number] = 0;
+        allocatedBytes += chunk.capacity();
+        return number;
+    }
+
+    private void markGarbage(long address) {
+        int number = (int) (address >>> 32);
+        int slotSize = HEADER_SIZE + chunk(address).getInt(offset(address));
+        chunkGarbage[number] += slotSize;
+        garbageBytes += slotSize;
+        if (number != active && !compacting && needsCompaction(number)) {
+            compactChunk(number);
+        }
+    }
+
+    private boolean needsCompaction(int number) {
+        return chunkGarbage[number] > chunks.get(number).position() * garbageRatio;
+    }
+
+    // Живая запись - та, на которую указывает индекс; остальные слоты чанка уже мусор
+    private void compactChunk(int number) {
+        ByteBuffer chunk = chunks.get(number);
+        int end = chunk.position();
+        compacting = true;
+        try {
+            for (int offset = 0; offset < end; ) {
+                int capacity = chunk.getInt(offset);
+                long id = chunk.getLong(offset + Integer.BYTES * 2);
+                if (index.get(id) == (((long) number << 32) | offset)) {
+                    int length = chunk.getInt(offset + Integer.BYTES);
+                    index.put(id, allocate(id, capacity, chunk, offset + HEADER_SIZE, length));
+                }
+                offset += HEADER_SIZE + capacity;
+            }
+        } finally {
+            compacting = false;
+        }
+        garbageBytes -= chunkGarbage[number];
+        chunkGarbage[number] = 0;
+        allocatedBytes -= chunk.capacity();
+        chunks.set(number, null);
+        freeChunks.add(number);
+    }
+
+    private void write(ByteBuffer chunk, int offset, int capacity, int length, long id, ByteBuffer source,
+                       int sourceOffset) {
+        chunk.putInt(offset, capacity);
+        chunk.putInt(offset + Integer.BYTES, length);
+        chunk.putLong(offset + Integer.BYTES * 2, id);
+        chunk.put(offset + HEADER_SIZE, source, sourceOffset, length);
+    }
+
+    private ByteBuffer chunk(long address) {
+        return chunks.get((int) (address >>> 32));
+    }
+
+    private static int offset(long address) {
+        return (int) address;
+    }
+}
@@ -0,0 +1,70 @@
+package ru.yandex.practicum.filmorate.storage.offheap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.LongConsumer;
+
+@Component
+@ConditionalOnProperty(name = "filmorate.storage.type", havingValue = "off-heap")
+public class OffHeapFilmStorage implements FilmStorage {
+    private final OffHeapEntityStore<Film> store;
+
+    public OffHeapFilmStorage(@Value("${filmorate.storage.off-heap.chunk-size:67108864}") int chunkSize,
+                              @Value("${filmorate.storage.off-heap.garbage-ratio:0.5}") double garbageRatio) {
+        this.store = new OffHeapEntityStore<>(new FilmCodec(), chunkSize, garbageRatio);
+    }
+
+    @Override
+    public Film create(Film film) {
+        film.setId(store.nextId());
+        store.put(film);
+        return film;
+    }
+
+    // В отличие от хранилища в памяти, сохраняется весь объект, включая лайки
+    @Override
+    public Film update(Film film) {
+        if (film.getId() == null || !store.contains(film.getId())) {
+            throw new NotFoundException("Фильм с id=" + film.getId() + " не найден");
+        }
+        store.put(film);
+        return film;
+    }
+
+    @Override
+    public Film save(Film film) {
+        store.put(film);
+        return film;
+    }
+
+    @Override
+    public List<Film> findAll() {
+        return store.values();
+    }
+
+    @Override
+    public Optional<Film> findById(Long id) {
+        return id == null ? Optional.empty() : store.get(id);
+    }
+
+    @Override
+    public void delete(Long id) {
+        store.remove(id);
+    }
+
+    @Override
+    public void forEachId(LongConsumer action) {
+        store.forEachId(action);
+    }
+
+    public OffHeapEntityStore<Film> getStore() {
+        return store;
+    }
+}
@@ -0,0 +1,75 @@
+package ru.yandex.practicum.filmorate.storage.offheap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.LongConsumer;
+
+@Component
+@ConditionalOnProperty(name = "filmorate.storage.type", havingValue = "off-heap")
+public class OffHeapUserStorage implements UserStorage {
+    private final OffHeapEntityStore<User> store;
+
+    public OffHeapUserStorage(@Value("${filmorate.storage.off-heap.chunk-size:67108864}") int chunkSize,
+                              @Value("${filmorate.storage.off-heap.garbage-ratio:0.5}") double garbageRatio) {
+        this.store = new OffHeapEntityStore<>(new UserCodec(), chunkSize, garbageRatio);
+    }
+
+    @Override
+    public User create(User user) {
+        user.setId(store.nextId());
+        store.put(user);
+        return user;
+    }
+
+    // В отличие от хранилища в памяти, сохраняется весь объект, включая друзей
+    @Override
+    public User update(User user) {
+        if (user.getId() == null || !store.contains(user.getId())) {
+            throw new NotFoundException("Пользователь с id=" + user.getId() + " не найден");
+        }
+        store.put(user);
+        return user;
+    }
+
+    @Override
+    public User save(User user) {
+        store.put(user);
+        return user;
+    }
+
+    @Override
+    public List<User> findAll() {
+        return store.values();
+    }
+
+    @Override
+    public Optional<User> findById(Long id) {
+        return id == null ? Optional.empty() : store.get(id);
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return id != null && store.contains(id);
+    }
+
+    @Override
+    public void delete(Long id) {
+        store.remove(id);
+    }
+
+    @Override
+    public void forEachId(LongConsumer action) {
+        store.forEachId(action);
+    }
+
+    public OffHeapEntityStore<User> getStore() {
+        return store;
+    }
+}
@@ -0,0 +1,59 @@
+package ru.yandex.practicum.filmorate.storage.offheap;
+
+import java.util.Arrays;
+
+// id -> адрес записи на примитивном массиве: id выдаются подряд, поэтому хватает плотного long[]
+public class OffsetIndex {
+    public static final long ABSENT = -1L;
+
+    private long[] addresses = newArray(1024);
+    private int size;
+
+    public long get(long id) {
+        if (id < 0 || id >= addresses.length) {
+            return ABSENT;
+        }
+        return addresses[(int) id];
+    }
+
+    public long put(long id, long address) {
+        if (id >= addresses.length) {
+            int length = addresses.length;
+            while (length <= id) {
+                length = length + (length >> 1);
+            }
+            long[] grown = newArray(length);
+            System.arraycopy(addresses, 0, grown, 0, addresses.length);
+            addresses = grown;
+        }
+        long previous = addresses[(int) id];
+        if (previous == ABSENT) {
+            size++;
+        }
+        addresses[(int) id] = address;
+        return previous;
+    }
+
+    public long remove(long id) {
+        long address = get(id);
+        if (address != ABSENT) {
+            addresses[(int) id] = ABSENT;
+            size--;
+        }
+        return address;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return addresses.length;
+    }
+
+    private static long[] newArray(int length) {
+        long[] array = new long[length];
+        Arrays.fill(array, ABSENT);
+        return array;
+    }
+}
@@ -0,0 +1,37 @@
+package ru.yandex.practicum.filmorate.storage.offheap;
+
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.nio.ByteBuffer;
+
+// id | birthday | login | email | name | friends
+public class UserCodec implements EntityCodec<User> {
+
+    @Override
+    public void encode(User user, ByteBuffer target) {
+        target.putLong(user.getId());
+        BinaryFields.putDate(target, user.getBirthday());
+        BinaryFields.putString(target, BinaryFields.utf8(user.getLogin()));
+        BinaryFields.putString(target, BinaryFields.utf8(user.getEmail()));
+        BinaryFields.putString(target, BinaryFields.utf8(user.getName()));
+        BinaryFields.putIdSet(target, user.getFriends());
+    }
+
+    @Override
+    public User decode(ByteBuffer source, int offset) {
+        BinaryFields.Reader reader = new BinaryFields.Reader(source, offset);
+        User user = new User();
+        user.setId(reader.readLong());
+        user.setBirthday(reader.readDate());
+        user.setLogin(reader.readString());
+        user.setEmail(reader.readString());
+        user.setName(reader.readString());
+        user.setFriends(reader.readIdSet());
+        return user;
+    }
+
+    @Override
+    public long id(User user) {
+        return user.getId();
+    }
+}
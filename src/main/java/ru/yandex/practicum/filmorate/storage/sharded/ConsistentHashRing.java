@@ -0,0 +1,58 @@
+package ru.yandex.practicum.filmorate.storage.sharded;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+// Кольцо консистентного хеширования с виртуальными узлами: при добавлении узла переезжает ~1/N ключей
+public class ConsistentHashRing<T> {
+    private final long[] points;
+    private final Object[] owners;
+
+    public ConsistentHashRing(List<T> nodes, int virtualNodes, Function<T, String> nodeName) {
+        int size = nodes.size() * virtualNodes;
+        long[][] entries = new long[size][];
+        int i = 0;
+        for (int node = 0; node < nodes.size(); node++) {
+            String name = nodeName.apply(nodes.get(node));
+            for (int replica = 0; replica < virtualNodes; replica++) {
+                entries[i++] = new long[]{hash(name + "#" + replica), node};
+            }
+        }
+        Arrays.sort(entries, (a, b) -> Long.compare(a[0], b[0]));
+        this.points = new long[size];
+        this.owners = new Object[size];
+        for (i = 0; i < size; i++) {
+            points[i] = entries[i][0];
+            owners[i] = nodes.get((int) entries[i][1]);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public T nodeFor(long key) {
+        int index = Arrays.binarySearch(points, mix(key));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return (T) owners[index == points.length ? 0 : index];
+    }
+
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash = (hash ^ b) * 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    // Финализатор MurmurHash3: последовательные id равномерно расходятся по кольцу
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
@@ -0,0 +1,61 @@
+package ru.yandex.practicum.filmorate.storage.sharded;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Внутрипроцессная замена отдельного узла: хранит только свою часть сущностей
+public class ShardNode<T> {
+    private final String name;
+    private final Map<Long, T> entities = new ConcurrentHashMap<>();
+
+    public ShardNode(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void put(Long id, T entity) {
+        entities.put(id, entity);
+    }
+
+    public Optional<T> get(Long id) {
+        return Optional.ofNullable(entities.get(id));
+    }
+
+    public boolean contains(Long id) {
+        return entities.containsKey(id);
+    }
+
+    public void remove(Long id) {
+        entities.remove(id);
+    }
+
+    public Collection<Long> ids() {
+        return entities.keySet();
+    }
+
+    public Collection<T> values() {
+        return entities.values();
+    }
+
+    public List<T> getAll(Collection<Long> ids) {
+        List<T> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            T entity = entities.get(id);
+            if (entity != null) {
+                result.add(entity);
+            }
+        }
+        return result;
+    }
+
+    public int size() {
+        return entities.size();
+    }
+}
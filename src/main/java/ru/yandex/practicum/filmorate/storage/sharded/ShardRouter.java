@@ -0,0 +1,63 @@
+package ru.yandex.practicum.filmorate.storage.sharded;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+// Маршрутизация по id и рассылка запроса на все узлы с параллельным сбором ответов
+public class ShardRouter<T> implements AutoCloseable {
+    private final List<ShardNode<T>> nodes;
+    private final ConsistentHashRing<ShardNode<T>> ring;
+    private final ExecutorService executor;
+
+    public ShardRouter(String name, int shards, int virtualNodes) {
+        List<ShardNode<T>> created = new ArrayList<>(shards);
+        for (int i = 0; i < shards; i++) {
+            created.add(new ShardNode<>(name + "-" + i));
+        }
+        this.nodes = List.copyOf(created);
+        this.ring = new ConsistentHashRing<>(nodes, virtualNodes, ShardNode::getName);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(shards, runnable -> {
+            Thread thread = new Thread(runnable, name + "-shard-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public ShardNode<T> route(long id) {
+        return ring.nodeFor(id);
+    }
+
+    public List<ShardNode<T>> getNodes() {
+        return nodes;
+    }
+
+    public <R> List<R> scatter(Function<ShardNode<T>, R> request) {
+        List<CompletableFuture<R>> futures = nodes.stream()
+                .map(node -> CompletableFuture.supplyAsync(() -> request.apply(node), executor))
+                .toList();
+        return futures.stream().map(CompletableFuture::join).toList();
+    }
+
+    // Группирует id по узлам, чтобы к каждому узлу был один запрос
+    public Map<ShardNode<T>, List<Long>> groupByNode(Collection<Long> ids) {
+        Map<ShardNode<T>, List<Long>> groups = new LinkedHashMap<>();
+        for (Long id : ids) {
+            groups.computeIfAbsent(route(id), node -> new ArrayList<>()).add(id);
+        }
+        return groups;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,127 @@
+package ru.yandex.practicum.filmorate.storage.sharded;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+@Component
+@ConditionalOnProperty(name = "filmorate.storage.type", havingValue = "sharded")
+public class ShardedFilmStorage implements FilmStorage {
+    private final ShardRouter<Film> router;
+    private final AtomicLong currentId = new AtomicLong(1L);
+
+    public ShardedFilmStorage(@Value("${filmorate.storage.sharded.shards:4}") int shards,
+                              @Value("${filmorate.storage.sharded.virtual-nodes:128}") int virtualNodes) {
+        this.router = new ShardRouter<>("films", shards, virtualNodes);
+    }
+
+    @Override
+    public Film create(Film film) {
+        long id = currentId.getAndIncrement();
+        film.setId(id);
+        router.route(id).put(id, film);
+        return film;
+    }
+
+    @Override
+    public Film update(Film film) {
+        Film existingFilm = film.getId() == null ? null : router.route(film.getId()).get(film.getId()).orElse(null);
+        if (existingFilm == null) {
+            throw new NotFoundException("Фильм с id=" + film.getId() + " не найден");
+        }
+
+        existingFilm.setName(film.getName());
+        existingFilm.setDescription(film.getDescription());
+        existingFilm.setReleaseDate(film.getReleaseDate());
+        existingFilm.setDuration(film.getDuration());
+
+        return existingFilm;
+    }
+
+    @Override
+    public Film save(Film film) {
+        router.route(film.getId()).put(film.getId(), film);
+        currentId.accumulateAndGet(film.getId() + 1, Math::max);
+        return film;
+    }
+
+    @Override
+    public List<Film> findAll() {
+        List<Film> films = new ArrayList<>();
+        router.scatter(node -> new ArrayList<>(node.values())).forEach(films::addAll);
+        return films;
+    }
+
+    @Override
+    public Optional<Film> findById(Long id) {
+        return id == null ? Optional.empty() : router.route(id).get(id);
+    }
+
+    @Override
+    public void delete(Long id) {
+        router.route(id).remove(id);
+    }
+
+    @Override
+    public void forEachId(LongConsumer action) {
+        router.getNodes().forEach(node -> node.ids().forEach(action::accept));
+    }
+
+    // Каждый узел отдаёт свой топ-k, затем k отсортированных списков сливаются
+    @Override
+    public List<Film> findTopByLikes(int count) {
+        List<List<Film>> partial = router.scatter(node -> FilmStorage.topByLikes(node.values(), count));
+        PriorityQueue<Cursor> heads = new PriorityQueue<>((a, b) -> BY_LIKES.compare(a.current(), b.current()));
+        for (List<Film> films : partial) {
+            if (!films.isEmpty()) {
+                heads.add(new Cursor(films));
+            }
+        }
+        List<Film> result = new ArrayList<>(count);
+        while (result.size() < count && !heads.isEmpty()) {
+            Cursor cursor = heads.poll();
+            result.add(cursor.current());
+            if (cursor.advance()) {
+                heads.add(cursor);
+            }
+        }
+        return result;
+    }
+
+    public ShardRouter<Film> getRouter() {
+        return router;
+    }
+
+    @PreDestroy
+    public void close() {
+        router.close();
+    }
+
+    private static class Cursor {
+        private final List<Film> films;
+        private int position;
+
+        Cursor(List<Film> films) {
+            this.films = films;
+        }
+
+        Film current() {
+            return films.get(position);
+        }
+
+        boolean advance() {
+            return ++position < films.size();
+        }
+    }
+}
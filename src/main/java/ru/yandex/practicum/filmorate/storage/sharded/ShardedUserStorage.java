@@ -0,0 +1,112 @@
+package ru.yandex.practicum.filmorate.storage.sharded;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+@Component
+@ConditionalOnProperty(name = "filmorate.storage.type", havingValue = "sharded")
+public class ShardedUserStorage implements UserStorage {
+    private final ShardRouter<User> router;
+    private final AtomicLong currentId = new AtomicLong(1L);
+
+    public ShardedUserStorage(@Value("${filmorate.storage.sharded.shards:4}") int shards,
+                              @Value("${filmorate.storage.sharded.virtual-nodes:128}") int virtualNodes) {
+        this.router = new ShardRouter<>("users", shards, virtualNodes);
+    }
+
+    @Override
+    public User create(User user) {
+        long id = currentId.getAndIncrement();
+        user.setId(id);
+        router.route(id).put(id, user);
+        return user;
+    }
+
+    @Override
+    public User update(User user) {
+        User existingUser = user.getId() == null ? null : router.route(user.getId()).get(user.getId()).orElse(null);
+        if (existingUser == null) {
+            throw new NotFoundException("Пользователь с id=" + user.getId() + " не найден");
+        }
+
+        existingUser.setEmail(user.getEmail());
+        existingUser.setLogin(user.getLogin());
+        existingUser.setName(user.getName());
+        existingUser.setBirthday(user.getBirthday());
+
+        return existingUser;
+    }
+
+    @Override
+    public User save(User user) {
+        router.route(user.getId()).put(user.getId(), user);
+        currentId.accumulateAndGet(user.getId() + 1, Math::max);
+        return user;
+    }
+
+    @Override
+    public List<User> findAll() {
+        List<User> users = new ArrayList<>();
+        router.scatter(node -> new ArrayList<>(node.values())).forEach(users::addAll);
+        return users;
+    }
+
+    @Override
+    public Optional<User> findById(Long id) {
+        return id == null ? Optional.empty() : router.route(id).get(id);
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return id != null && router.route(id).contains(id);
+    }
+
+    @Override
+    public void delete(Long id) {
+        router.route(id).remove(id);
+    }
+
+    @Override
+    public void forEachId(LongConsumer action) {
+        router.getNodes().forEach(node -> node.ids().forEach(action::accept));
+    }
+
+    // Друзья могут лежать на разных узлах: по одному пакетному запросу на узел
+    @Override
+    public List<User> findAllById(Collection<Long> ids) {
+        Map<Long, User> found = new HashMap<>();
+        router.groupByNode(ids).forEach((node, nodeIds) ->
+                node.getAll(nodeIds).forEach(user -> found.put(user.getId(), user)));
+        List<User> result = new ArrayList<>(found.size());
+        for (Long id : ids) {
+            User user = found.get(id);
+            if (user != null) {
+                result.add(user);
+            }
+        }
+        return result;
+    }
+
+    public ShardRouter<User> getRouter() {
+        return router;
+    }
+
+    @PreDestroy
+    public void close() {
+        router.close();
+    }
+}
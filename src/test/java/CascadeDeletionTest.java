@@ -0,0 +1,280 @@
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import ru.yandex.practicum.filmorate.model.EntityType;
+import ru.yandex.practicum.filmorate.model.Event;
+import ru.yandex.practicum.filmorate.model.EventType;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.CascadeDeletionExecutor;
+import ru.yandex.practicum.filmorate.service.EntityLocks;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.LikeIndex;
+import ru.yandex.practicum.filmorate.service.LikeWriteBehindQueue;
+import ru.yandex.practicum.filmorate.service.PopularFilmsLeaderboard;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CascadeDeletionTest {
+    private final InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+    private final InMemoryUserStorage userStorage = new InMemoryUserStorage();
+    private final LikeIndex likeIndex = new LikeIndex(filmStorage);
+    private CascadeDeletionExecutor cascadeExecutor;
+    private UserService userService;
+    private FilmService filmService;
+    private LikeWriteBehindQueue likeQueue;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        cascadeExecutor.shutdown();
+        likeQueue.shutdown();
+    }
+
+    @Test
+    void deleteUser_ShouldRemoveLikesFromFilmsAndIndex() {
+        // Given
+        createServices(1000);
+        User user = createUser("liker");
+        User other = createUser("other");
+        Film first = createFilm("First");
+        Film second = createFilm("Second");
+        filmService.addLike(first.getId(), user.getId());
+        filmService.addLike(second.getId(), user.getId());
+        filmService.addLike(second.getId(), other.getId());
+
+        // When
+        userService.delete(user.getId());
+
+        // Then
+        assertTrue(filmService.getFilmById(first.getId()).getLikes().isEmpty());
+        assertEquals(Set.of(other.getId()), filmService.getFilmById(second.getId()).getLikes());
+        assertTrue(likeIndex.getLikedFilms(user.getId()).isEmpty());
+        assertEquals(Set.of(second.getId()), likeIndex.getLikedFilms(other.getId()));
+    }
+
+    @Test
+    void deleteUser_ShouldRemoveIdFromFriendsOfFriends() {
+        // Given
+        createServices(1000);
+        User user = createUser("user");
+        User friend = createUser("friend");
+        User stranger = createUser("stranger");
+        userService.addFriend(user.getId(), friend.getId());
+        userService.addFriend(friend.getId(), stranger.getId());
+
+        // When
+        userService.delete(user.getId());
+
+        // Then
+        assertEquals(Set.of(stranger.getId()), userService.getUserById(friend.getId()).getFriends());
+        assertEquals(Set.of(friend.getId()), userService.getUserById(stranger.getId()).getFriends());
+    }
+
+    @Test
+    void deleteFilm_ShouldRemoveFilmFromIndex() {
+        // Given
+        createServices(1000);
+        User user = createUser("liker");
+        Film deleted = createFilm("Deleted");
+        Film kept = createFilm("Kept");
+        filmService.addLike(deleted.getId(), user.getId());
+        filmService.addLike(kept.getId(), user.getId());
+
+        // When
+        filmService.delete(deleted.getId());
+
+        // Then
+        assertEquals(Set.of(kept.getId()), likeIndex.getLikedFilms(user.getId()));
+    }
+
+    @Test
+    void deleteUser_AboveThreshold_ShouldCascadeInBackgroundBatches() {
+        // Given
+        createServices(2);
+        User user = createUser("popular");
+        List<Long> filmIds = new ArrayList<>();
+        List<Long> friendIds = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            Film film = createFilm("Film " + i);
+            filmService.addLike(film.getId(), user.getId());
+            filmIds.add(film.getId());
+            User friend = createUser("friend" + i);
+            userService.addFriend(user.getId(), friend.getId());
+            friendIds.add(friend.getId());
+        }
+
+        // When
+        userService.delete(user.getId());
+
+        // Then
+        awaitTrue(() -> filmIds.stream().allMatch(id -> filmService.getFilmById(id).getLikes().isEmpty()));
+        awaitTrue(() -> friendIds.stream().allMatch(id -> userService.getUserById(id).getFriends().isEmpty()));
+        assertTrue(likeIndex.getLikedFilms(user.getId()).isEmpty());
+    }
+
+    @Test
+    void run_WhenOneIdFails_ShouldProcessRemainingIds() {
+        // Given
+        createServices(3);
+        List<Long> syncProcessed = new CopyOnWriteArrayList<>();
+        List<Long> asyncProcessed = new CopyOnWriteArrayList<>();
+        Consumer<Long> failOnTwo = id -> {
+            if (id == 2L) {
+                throw new IllegalStateException("связь не удалена");
+            }
+        };
+
+        // When
+        cascadeExecutor.run("синхронно", List.of(1L, 2L, 3L), failOnTwo.andThen(syncProcessed::add));
+        cascadeExecutor.run("в фоне", List.of(1L, 2L, 3L, 4L, 5L), failOnTwo.andThen(asyncProcessed::add));
+
+        // Then
+        assertEquals(List.of(1L, 3L), syncProcessed);
+        awaitTrue(() -> asyncProcessed.size() == 4);
+        assertEquals(List.of(1L, 3L, 4L, 5L), asyncProcessed);
+    }
+
+    @Test
+    void start_ShouldBuildIndexFromStorageInBackground() {
+        // Given
+        createServices(1000);
+        Film film = filmStorage.create(new Film(null, "Stored", "Description", LocalDate.of(2000, 1, 1), 100));
+        film.getLikes().addAll(Set.of(1L, 2L));
+        LikeIndex rebuilt = new LikeIndex(filmStorage);
+
+        // When
+        rebuilt.start();
+
+        // Then
+        awaitTrue(rebuilt::isReady);
+        assertEquals(Set.of(film.getId()), rebuilt.getLikedFilms(1L));
+        assertEquals(Set.of(film.getId()), rebuilt.getLikedFilms(2L));
+    }
+
+    @Test
+    void deleteUser_WithWriteBehind_ShouldNotLeaveQueuedLikes() {
+        // Given
+        createServices(1000, true);
+        User deleted = createUser("deleted");
+        User kept = createUser("kept");
+        Film applied = createFilm("Applied");
+        Film queued = createFilm("Queued");
+        filmService.addLike(applied.getId(), deleted.getId());
+        likeQueue.start();
+        assertTrue(likeQueue.awaitApplied(5_000));
+        filmService.addLike(queued.getId(), kept.getId());
+        filmService.addLike(queued.getId(), deleted.getId());
+
+        // When
+        userService.delete(deleted.getId());
+
+        // Then
+        assertTrue(likeQueue.awaitApplied(5_000));
+        assertTrue(filmService.getFilmById(applied.getId()).getLikes().isEmpty());
+        assertEquals(Set.of(kept.getId()), filmService.getFilmById(queued.getId()).getLikes());
+        assertTrue(likeIndex.getLikedFilms(deleted.getId()).isEmpty());
+    }
+
+    @Test
+    void deleteUser_ConcurrentWithLikes_ShouldNotLeaveOrphanLikes() throws InterruptedException {
+        // Given
+        createServices(1000);
+        List<Film> films = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            films.add(createFilm("Film " + i));
+        }
+        for (int round = 0; round < 20; round++) {
+            User user = createUser("liker" + round);
+            Thread liker = new Thread(() -> {
+                for (Film film : films) {
+                    try {
+                        filmService.addLike(film.getId(), user.getId());
+                    } catch (RuntimeException e) {
+                        return; // Пользователь уже удалён
+                    }
+                }
+            });
+
+            // When
+            liker.start();
+            userService.delete(user.getId());
+            liker.join();
+
+            // Then
+            for (Film film : films) {
+                assertFalse(filmService.getFilmById(film.getId()).getLikes().contains(user.getId()));
+            }
+            assertTrue(likeIndex.getLikedFilms(user.getId()).isEmpty());
+        }
+    }
+
+    @Test
+    void onUserDeleted_Replicated_ShouldNotCascade() {
+        // Given
+        createServices(1000);
+        User user = createUser("liker");
+        Film film = createFilm("Film");
+        filmService.addLike(film.getId(), user.getId());
+        Event event = new Event(EntityType.USER, EventType.DELETE, user.getId(), null, 0, null);
+        event.setReplicated(true);
+
+        // When
+        filmService.onUserDeleted(event);
+
+        // Then
+        assertEquals(Set.of(user.getId()), filmService.getFilmById(film.getId()).getLikes());
+        assertEquals(Set.of(film.getId()), likeIndex.getLikedFilms(user.getId()));
+    }
+
+    private void createServices(int asyncThreshold) {
+        createServices(asyncThreshold, false);
+    }
+
+    private void createServices(int asyncThreshold, boolean writeBehind) {
+        cascadeExecutor = new CascadeDeletionExecutor(asyncThreshold, 2);
+        FilmService[] films = new FilmService[1];
+        // Синхронная доставка событий, как у Spring: удаление пользователя запускает каскад по лайкам
+        ApplicationEventPublisher publisher = event -> {
+            if (event instanceof Event e && e.getEntity() == EntityType.USER && e.getType() == EventType.DELETE) {
+                films[0].onUserDeleted(e);
+            }
+        };
+        EntityLocks entityLocks = new EntityLocks(16);
+        userService = new UserService(userStorage, publisher, cascadeExecutor, entityLocks);
+        PopularFilmsLeaderboard leaderboard = new PopularFilmsLeaderboard(filmStorage, 10, 50, 1000, 0);
+        likeQueue = new LikeWriteBehindQueue(filmStorage, userStorage, likeIndex, publisher, entityLocks,
+                new SimpleMeterRegistry(), writeBehind, 1, 16, 16);
+        filmService = new FilmService(filmStorage, userService, publisher, leaderboard, likeIndex, cascadeExecutor,
+                likeQueue, entityLocks);
+        films[0] = filmService;
+    }
+
+    private User createUser(String login) {
+        return userService.create(new User(null, login, login + "@mail.ru", login, LocalDate.of(1990, 1, 1)));
+    }
+
+    private Film createFilm(String name) {
+        return filmService.create(new Film(null, name, "Description", LocalDate.of(2000, 1, 1), 100));
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "каскадное удаление не завершилось за 5 секунд");
+            Thread.onSpinWait();
+        }
+    }
+}
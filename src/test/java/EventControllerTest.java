@@ -0,0 +1,54 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.yandex.practicum.filmorate.controller.EventController;
+import ru.yandex.practicum.filmorate.service.EventService;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EventControllerTest {
+
+    @Mock
+    private EventService eventService;
+
+    @InjectMocks
+    private EventController eventController;
+
+    @Test
+    void subscribe_WithoutOffset_ShouldSubscribeFromHead() {
+        // Given
+        SseEmitter emitter = new SseEmitter();
+        when(eventService.subscribe(isNull())).thenReturn(emitter);
+
+        // When
+        SseEmitter result = eventController.subscribe(null, null);
+
+        // Then
+        assertSame(emitter, result);
+        verify(eventService, times(1)).subscribe(null);
+    }
+
+    @Test
+    void subscribe_WithLastEventId_ShouldResumeFromNextOffset() {
+        // When
+        eventController.subscribe(41L, 5L);
+
+        // Then
+        verify(eventService, times(1)).subscribe(42L);
+    }
+
+    @Test
+    void subscribe_WithOffset_ShouldResumeFromOffset() {
+        // When
+        eventController.subscribe(null, 5L);
+
+        // Then
+        verify(eventService, times(1)).subscribe(5L);
+    }
+}
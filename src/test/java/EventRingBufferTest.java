@@ -0,0 +1,60 @@
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.EntityType;
+import ru.yandex.practicum.filmorate.model.Event;
+import ru.yandex.practicum.filmorate.model.EventType;
+import ru.yandex.practicum.filmorate.service.EventRingBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventRingBufferTest {
+
+    @Test
+    void constructor_ShouldRoundCapacityUpToPowerOfTwo() {
+        // When & Then
+        assertEquals(8, new EventRingBuffer(5).capacity());
+        assertEquals(8, new EventRingBuffer(8).capacity());
+    }
+
+    @Test
+    void publish_ShouldAssignSequentialOffsets() {
+        // Given
+        EventRingBuffer buffer = new EventRingBuffer(4);
+
+        // When
+        long first = buffer.publish(event(1L));
+        long second = buffer.publish(event(2L));
+
+        // Then
+        assertEquals(0, first);
+        assertEquals(1, second);
+        assertEquals(2, buffer.head());
+        assertEquals(0, buffer.oldest());
+        assertEquals(2L, buffer.get(1).getEntityId());
+        assertNull(buffer.get(2));
+    }
+
+    @Test
+    void publish_AfterWrapAround_ShouldOverwriteOldestEvents() {
+        // Given
+        EventRingBuffer buffer = new EventRingBuffer(4);
+
+        // When
+        for (long id = 0; id < 10; id++) {
+            buffer.publish(event(id));
+        }
+
+        // Then
+        assertEquals(10, buffer.head());
+        assertEquals(6, buffer.oldest());
+        for (long offset = 0; offset < 6; offset++) {
+            assertNull(buffer.get(offset), "смещение " + offset + " должно быть перезаписано");
+        }
+        for (long offset = 6; offset < 10; offset++) {
+            assertEquals(offset, buffer.get(offset).getEntityId());
+        }
+    }
+
+    private static Event event(Long id) {
+        return new Event(EntityType.FILM, EventType.CREATE, id, null);
+    }
+}
@@ -0,0 +1,190 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.yandex.practicum.filmorate.model.EntityType;
+import ru.yandex.practicum.filmorate.model.Event;
+import ru.yandex.practicum.filmorate.model.EventType;
+import ru.yandex.practicum.filmorate.service.EventService;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventServiceTest {
+    private final List<RecordingEmitter> emitters = new CopyOnWriteArrayList<>();
+    private EventService eventService;
+
+    @AfterEach
+    void tearDown() {
+        eventService.shutdown();
+    }
+
+    @Test
+    void subscribe_WithOffset_ShouldResumeFromOffset() {
+        // Given
+        createService(16, 16, 0);
+        publish(5);
+
+        // When
+        RecordingEmitter emitter = subscribe(3L);
+        publish(1);
+
+        // Then
+        awaitTrue(() -> emitter.sent.size() == 3);
+        assertEquals(List.of("CREATE:3", "CREATE:4", "CREATE:5"), emitter.sent);
+    }
+
+    @Test
+    void subscribe_WithOffsetBeyondHead_ShouldStartFromHead() {
+        // Given
+        createService(16, 16, 0);
+        publish(2);
+
+        // When
+        RecordingEmitter emitter = subscribe(100L);
+        publish(1);
+
+        // Then
+        awaitTrue(() -> emitter.sent.size() == 1);
+        assertEquals(List.of("CREATE:2"), emitter.sent);
+    }
+
+    @Test
+    void subscribe_WithOverwrittenOffset_ShouldSendResetAndContinueFromOldest() {
+        // Given
+        createService(4, 16, 0);
+        publish(10);
+
+        // When
+        RecordingEmitter emitter = subscribe(0L);
+
+        // Then
+        awaitTrue(() -> emitter.sent.size() == 5);
+        assertEquals(List.of("RESET:6", "CREATE:6", "CREATE:7", "CREATE:8", "CREATE:9"), emitter.sent);
+    }
+
+    @Test
+    void drain_SubscriberBehindMaxLag_ShouldSendResetAndSkipToLagBound() {
+        // Given
+        createService(64, 3, 0);
+        publish(10);
+
+        // When
+        RecordingEmitter emitter = subscribe(0L);
+
+        // Then
+        awaitTrue(() -> emitter.sent.size() == 4);
+        assertEquals(List.of("RESET:7", "CREATE:7", "CREATE:8", "CREATE:9"), emitter.sent);
+    }
+
+    @Test
+    void onEvent_ShouldFanOutToAllSubscribers() {
+        // Given
+        createService(16, 16, 0);
+        List<RecordingEmitter> subscribers = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            subscribers.add(subscribe(null));
+        }
+
+        // When
+        publish(3);
+
+        // Then
+        for (RecordingEmitter emitter : subscribers) {
+            awaitTrue(() -> emitter.sent.size() == 3);
+            assertEquals(List.of("CREATE:0", "CREATE:1", "CREATE:2"), emitter.sent);
+        }
+    }
+
+    @Test
+    void drain_SlowSubscriber_ShouldBeDisconnectedWithoutBlockingOthers() {
+        // Given
+        createService(16, 16, 50);
+        RecordingEmitter slow = subscribe(null);
+        slow.sendDelayMillis = 200;
+        RecordingEmitter fast = subscribe(null);
+
+        // When
+        publish(3);
+
+        // Then
+        awaitTrue(() -> slow.failed && fast.sent.size() == 3);
+        assertEquals(1, slow.sent.size());
+        assertEquals(1, eventService.getSubscriberCount());
+    }
+
+    private void createService(int capacity, int maxLag, long sendTimeoutMillis) {
+        eventService = new EventService(capacity, 2, 100, 16, 60_000, maxLag,
+                sendTimeoutMillis == 0 ? 60_000 : sendTimeoutMillis) {
+            @Override
+            protected SseEmitter createEmitter(long timeoutMillis) {
+                RecordingEmitter emitter = new RecordingEmitter();
+                emitters.add(emitter);
+                return emitter;
+            }
+        };
+    }
+
+    private RecordingEmitter subscribe(Long offset) {
+        eventService.subscribe(offset);
+        return emitters.get(emitters.size() - 1);
+    }
+
+    private void publish(int count) {
+        for (int i = 0; i < count; i++) {
+            long id = eventService.getHeadOffset();
+            eventService.onEvent(new Event(EntityType.FILM, EventType.CREATE, id, null));
+        }
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "события не доставлены за 5 секунд");
+            Thread.onSpinWait();
+        }
+    }
+
+    // Запоминает отправленные события как "ИМЯ:данные": id сущности для событий, смещение для RESET
+    private static class RecordingEmitter extends SseEmitter {
+        private final List<String> sent = new CopyOnWriteArrayList<>();
+        private volatile long sendDelayMillis;
+        private volatile boolean failed;
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            Set<DataWithMediaType> parts = builder.build();
+            String name = null;
+            Object data = null;
+            for (DataWithMediaType part : parts) {
+                if (part.getData() instanceof String text) {
+                    int start = text.indexOf("event:");
+                    if (start >= 0) {
+                        name = text.substring(start + 6, text.indexOf('\n', start));
+                    }
+                } else {
+                    data = part.getData();
+                }
+            }
+            sent.add(name + ":" + (data instanceof Event event ? event.getEntityId() : data));
+            if (sendDelayMillis > 0) {
+                try {
+                    Thread.sleep(sendDelayMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        @Override
+        public void completeWithError(Throwable ex) {
+            failed = true;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import ru.yandex.practicum.filmorate.controller.FilmController;
+import ru.yandex.practicum.filmorate.controller.StatsController;
+import ru.yandex.practicum.filmorate.controller.UserController;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.serialization.FieldProjection;
+import ru.yandex.practicum.filmorate.serialization.FieldProjectionAdvice;
+import ru.yandex.practicum.filmorate.serialization.ProjectedBody;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FieldProjectionTest {
+    private final ObjectMapper mapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+    private final FieldProjectionAdvice advice = new FieldProjectionAdvice();
+
+    @Test
+    void writer_ShouldWriteRequestedFieldsInDeclarationOrder() throws Exception {
+        // Given
+        Film film = new Film(1L, "Film", "Description", LocalDate.of(2000, 1, 1), 100);
+        film.getLikes().addAll(List.of(1L, 2L, 3L));
+
+        // When
+        String json = mapper.writeValueAsString(
+                new ProjectedBody<>(List.of(film), FieldProjection.FILM.writer("likeCount, name,id")));
+
+        // Then
+        assertEquals("[{\"id\":1,\"name\":\"Film\",\"likeCount\":3}]", json);
+    }
+
+    @Test
+    void writer_ShouldUseConfiguredDateFormat() throws Exception {
+        // Given
+        User user = new User(7L, "login", "user@mail.ru", "Name", LocalDate.of(1990, 5, 17));
+        user.getFriends().add(3L);
+
+        // When
+        String json = mapper.writeValueAsString(
+                new ProjectedBody<>(user, FieldProjection.USER.writer("birthday,friends")));
+
+        // Then
+        assertEquals("{\"birthday\":\"1990-05-17\",\"friends\":[3]}", json);
+    }
+
+    @Test
+    void writer_WithSameFieldSet_ShouldBeCompiledOnce() {
+        // Given
+        FieldProjection.Writer<Film> first = FieldProjection.FILM.writer("id,description");
+        int compiled = FieldProjection.FILM.compiledWriters();
+
+        // When
+        FieldProjection.Writer<Film> second = FieldProjection.FILM.writer("description,id,id");
+
+        // Then
+        assertSame(first, second);
+        assertEquals(compiled, FieldProjection.FILM.compiledWriters());
+    }
+
+    @Test
+    void writer_WithUnknownOrEmptyFields_ShouldThrowValidationException() {
+        // When & Then
+        ValidationException unknown = assertThrows(ValidationException.class,
+                () -> FieldProjection.USER.writer("id,likeCount"));
+        assertTrue(unknown.getMessage().contains("likeCount"));
+        assertThrows(ValidationException.class, () -> FieldProjection.FILM.writer(" , "));
+    }
+
+    @Test
+    void beforeBodyWrite_ShouldProjectOnlyEntityResponsesWithFieldsParameter() throws Exception {
+        // Given
+        MethodParameter films = new MethodParameter(FilmController.class.getMethod("findAll"), -1);
+        MethodParameter friends = new MethodParameter(
+                UserController.class.getMethod("getFriends", Long.class), -1);
+        MethodParameter stats = new MethodParameter(StatsController.class.getMethod("getStats"), -1);
+        List<Film> body = List.of(new Film(1L, "Film", "Description", LocalDate.of(2000, 1, 1), 100));
+
+        // When
+        Object plain = write(body, films, null);
+        Object projected = write(body, films, "id,name");
+        Object emptyFriends = write(List.of(), friends, "id,login");
+        Object statsBody = write(Map.of(), stats, "id");
+
+        // Then
+        assertSame(body, plain);
+        assertEquals("[{\"id\":1,\"name\":\"Film\"}]", mapper.writeValueAsString(projected));
+        assertInstanceOf(ProjectedBody.class, emptyFriends);
+        assertThrows(ValidationException.class, () -> write(List.of(), friends, "id,likeCount"));
+        assertEquals(Map.of(), statsBody);
+    }
+
+    @Test
+    void beforeBodyWrite_ForModifyingRequest_ShouldIgnoreFieldsParameter() throws Exception {
+        // Given
+        MethodParameter create = new MethodParameter(FilmController.class.getMethod("create", Film.class), -1);
+        Film film = new Film(1L, "Film", "Description", LocalDate.of(2000, 1, 1), 100);
+
+        // When
+        Object body = write("POST", film, create, "bogus");
+
+        // Then
+        assertSame(film, body);
+    }
+
+    private Object write(Object body, MethodParameter returnType, String fields) {
+        return write("GET", body, returnType, fields);
+    }
+
+    private Object write(String method, Object body, MethodParameter returnType, String fields) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, "/");
+        if (fields != null) {
+            request.setParameter(FieldProjectionAdvice.PARAMETER, fields);
+        }
+        return advice.beforeBodyWrite(body, returnType, MediaType.APPLICATION_JSON,
+                MappingJackson2HttpMessageConverter.class, new ServletServerHttpRequest(request), null);
+    }
+}
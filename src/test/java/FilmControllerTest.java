@@ -156,6 +156,24 @@ class FilmControllerTest {
         assertEquals("Фильм с id=999 не найден", exception.getMessage());
     }
 
+    @Test
+    void delete_ShouldCallService() {
+        // When
+        filmController.delete(1L);
+
+        // Then
+        verify(filmService, times(1)).delete(1L);
+    }
+
+    @Test
+    void delete_WithNonExistentId_ShouldThrowException() {
+        // Given
+        doThrow(new NotFoundException("Фильм с id=999 не найден")).when(filmService).delete(999L);
+
+        // When & Then
+        assertThrows(NotFoundException.class, () -> filmController.delete(999L));
+    }
+
     @Test
     void addLike_ShouldCallService() {
         // When
@@ -0,0 +1,129 @@
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import ru.yandex.practicum.filmorate.exception.TooManyRequestsException;
+import ru.yandex.practicum.filmorate.model.Event;
+import ru.yandex.practicum.filmorate.model.EventType;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.EntityLocks;
+import ru.yandex.practicum.filmorate.service.LikeIndex;
+import ru.yandex.practicum.filmorate.service.LikeWriteBehindQueue;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LikeWriteBehindQueueTest {
+
+    private final List<Event> events = new CopyOnWriteArrayList<>();
+    private InMemoryFilmStorage filmStorage;
+    private InMemoryUserStorage userStorage;
+    private LikeIndex likeIndex;
+    private SimpleMeterRegistry meterRegistry;
+    private LikeWriteBehindQueue queue;
+
+    @BeforeEach
+    void setUp() {
+        filmStorage = new InMemoryFilmStorage();
+        userStorage = new InMemoryUserStorage();
+        for (int i = 1; i <= 4; i++) {
+            userStorage.create(new User(null, "user" + i, "user" + i + "@mail.ru", "User", LocalDate.of(1990, 1, 1)));
+        }
+        likeIndex = new LikeIndex(filmStorage);
+        meterRegistry = new SimpleMeterRegistry();
+        ApplicationEventPublisher publisher = event -> events.add((Event) event);
+        queue = new LikeWriteBehindQueue(filmStorage, userStorage, likeIndex, publisher, new EntityLocks(16),
+                meterRegistry, true, 2, 1024, 3);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        queue.shutdown();
+    }
+
+    @Test
+    void enqueue_ShouldCoalesceOperationsOfSamePair() {
+        // Given
+        Film film = filmStorage.create(new Film(null, "Hot", "Description", LocalDate.of(2000, 1, 1), 100));
+
+        // When
+        queue.enqueue(film.getId(), 1L, true);
+        queue.enqueue(film.getId(), 1L, false);
+        queue.enqueue(film.getId(), 2L, true);
+        queue.start();
+
+        // Then
+        assertTrue(queue.awaitApplied(5_000));
+        assertEquals(Set.of(2L), filmStorage.findById(film.getId()).orElseThrow().getLikes());
+        assertEquals(Set.of(film.getId()), likeIndex.removeUser(2L));
+        assertEquals(1, events.size());
+        assertEquals(EventType.LIKE, events.get(0).getType());
+        assertEquals(1.0, meterRegistry.counter("filmorate.likes.write-behind.coalesced").count());
+    }
+
+    @Test
+    void apply_WithDeletedUser_ShouldDropQueuedLike() {
+        // Given
+        Film film = filmStorage.create(new Film(null, "Hot", "Description", LocalDate.of(2000, 1, 1), 100));
+        queue.enqueue(film.getId(), 1L, true);
+        queue.enqueue(film.getId(), 3L, true);
+
+        // When
+        userStorage.delete(3L);
+        queue.start();
+
+        // Then
+        assertTrue(queue.awaitApplied(5_000));
+        assertEquals(Set.of(1L), filmStorage.findById(film.getId()).orElseThrow().getLikes());
+        assertTrue(likeIndex.getLikedFilms(3L).isEmpty());
+        assertEquals(1, events.size());
+    }
+
+    @Test
+    void apply_WhenOneFilmFails_ShouldApplyRestOfBatchAndCountDropped() throws InterruptedException {
+        // Given
+        Film broken = filmStorage.create(new Film(null, "Broken", "Description", LocalDate.of(2000, 1, 1), 100));
+        Film healthy = filmStorage.create(new Film(null, "Healthy", "Description", LocalDate.of(2000, 1, 1), 100));
+        ApplicationEventPublisher failing = event -> {
+            if (((Event) event).getEntityId().equals(broken.getId())) {
+                throw new IllegalStateException("подписчик упал");
+            }
+            events.add((Event) event);
+        };
+        queue.shutdown();
+        queue = new LikeWriteBehindQueue(filmStorage, userStorage, likeIndex, failing, new EntityLocks(16),
+                meterRegistry, true, 1, 1024, 10);
+        queue.enqueue(broken.getId(), 1L, true);
+        queue.enqueue(broken.getId(), 2L, true);
+        queue.enqueue(healthy.getId(), 1L, true);
+
+        // When
+        queue.start();
+
+        // Then
+        assertTrue(queue.awaitApplied(5_000));
+        assertEquals(Set.of(1L), filmStorage.findById(healthy.getId()).orElseThrow().getLikes());
+        assertEquals(1, events.size());
+        assertEquals(2.0, meterRegistry.counter("filmorate.likes.write-behind.dropped").count());
+    }
+
+    @Test
+    void enqueue_ShouldRejectWhenQueueIsFull() {
+        // Given
+        Film film = filmStorage.create(new Film(null, "Hot", "Description", LocalDate.of(2000, 1, 1), 100));
+        for (long userId = 1; userId <= 3; userId++) {
+            queue.enqueue(film.getId(), userId, true);
+        }
+
+        // When & Then
+        assertThrows(TooManyRequestsException.class, () -> queue.enqueue(film.getId(), 4L, true));
+    }
+}
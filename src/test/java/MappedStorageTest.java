@@ -0,0 +1,168 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.mapped.MappedEntityStore;
+import ru.yandex.practicum.filmorate.storage.mapped.MappedFilmStorage;
+import ru.yandex.practicum.filmorate.storage.mapped.MappedUserStorage;
+import ru.yandex.practicum.filmorate.storage.offheap.FilmCodec;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedStorageTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void film_ShouldSurviveRestartWithLikes() {
+        // Given
+        MappedFilmStorage storage = openFilms();
+        Film film = storage.create(new Film(null, "Film", "Description", LocalDate.of(2000, 1, 1), 120));
+        Film deleted = storage.create(new Film(null, "Deleted", "Description", LocalDate.of(2000, 1, 1), 90));
+        film.getLikes().add(1L);
+        film.getLikes().add(2L);
+        storage.update(film);
+        film.getLikes().remove(1L);
+        storage.update(film);
+        storage.delete(deleted.getId());
+        storage.close();
+
+        // When
+        MappedFilmStorage reopened = openFilms();
+
+        // Then
+        Film result = reopened.findById(film.getId()).orElseThrow();
+        assertEquals(Set.of(2L), result.getLikes());
+        assertEquals("Film", result.getName());
+        assertTrue(reopened.findById(deleted.getId()).isEmpty());
+        assertEquals(deleted.getId() + 1, reopened.create(new Film(null, "New", "D", LocalDate.now(), 1)).getId());
+        reopened.close();
+    }
+
+    @Test
+    void user_UpdateFields_ShouldRewriteEntity() {
+        // Given
+        MappedUserStorage storage = openUsers();
+        User user = storage.create(new User(null, "login", "mail@mail.ru", "Name", LocalDate.of(1990, 1, 1)));
+        user.getFriends().add(5L);
+        storage.update(user);
+
+        // When
+        user.setName("Renamed");
+        storage.update(user);
+        storage.close();
+        MappedUserStorage reopened = openUsers();
+
+        // Then
+        User result = reopened.findById(user.getId()).orElseThrow();
+        assertEquals("Renamed", result.getName());
+        assertEquals(Set.of(5L), result.getFriends());
+        reopened.close();
+    }
+
+    @Test
+    void compact_ShouldKeepLiveStateAndResetEdgeLog() {
+        // Given
+        MappedEntityStore<Film> store = new MappedEntityStore<>(directory, "films", 4096, new FilmCodec(),
+                Film::getLikes, Film::setLikes);
+        Film film = new Film(store.nextId(), "Film", "Description", LocalDate.of(2000, 1, 1), 120);
+        store.put(film);
+        for (long userId = 1; userId <= 50; userId++) {
+            film.getLikes().add(userId);
+            store.put(film);
+        }
+        assertTrue(store.needsCompaction(0.5, 10));
+
+        // When
+        store.compact();
+        store.close();
+        MappedEntityStore<Film> reopened = new MappedEntityStore<>(directory, "films", 4096, new FilmCodec(),
+                Film::getLikes, Film::setLikes);
+
+        // Then
+        assertEquals(50, reopened.get(film.getId()).orElseThrow().getLikes().size());
+        assertFalse(reopened.needsCompaction(0.5, 10));
+        reopened.close();
+    }
+
+    @Test
+    void nextId_AfterDeletingHighestIdsAndCompacting_ShouldNotReuseIds() {
+        // Given
+        MappedEntityStore<Film> store = openFilmStore();
+        Film kept = new Film(store.nextId(), "Kept", "Description", LocalDate.of(2000, 1, 1), 120);
+        store.put(kept);
+        long highest = 0;
+        for (int i = 0; i < 3; i++) {
+            highest = store.nextId();
+            store.put(new Film(highest, "Deleted", "Description", LocalDate.of(2000, 1, 1), 90));
+            store.remove(highest);
+        }
+
+        // When
+        store.compact();
+        store.close();
+        MappedEntityStore<Film> reopened = openFilmStore();
+
+        // Then
+        assertEquals(1, reopened.size());
+        assertEquals(highest + 1, reopened.nextId());
+        reopened.close();
+    }
+
+    @Test
+    void compact_WithConcurrentWrites_ShouldKeepChangesMadeDuringCopy() throws InterruptedException {
+        // Given
+        MappedEntityStore<Film> store = openFilmStore();
+        for (int i = 0; i < 5_000; i++) {
+            store.put(new Film(store.nextId(), "Film " + i, "Description", LocalDate.of(2000, 1, 1), 120));
+        }
+        Map<Long, Integer> expectedLikes = new ConcurrentHashMap<>();
+        AtomicBoolean compacted = new AtomicBoolean();
+        Thread writer = new Thread(() -> {
+            for (long round = 1; !compacted.get() || round < 100; round++) {
+                long id = 1 + round % 5_000;
+                Film film = store.get(id).orElseThrow();
+                film.getLikes().add(round);
+                store.put(film);
+                expectedLikes.put(id, film.getLikes().size());
+            }
+            store.remove(5_000L);
+        });
+
+        // When
+        writer.start();
+        store.compact();
+        compacted.set(true);
+        writer.join();
+        store.close();
+        MappedEntityStore<Film> reopened = openFilmStore();
+
+        // Then
+        assertEquals(4_999, reopened.size());
+        assertTrue(reopened.get(5_000L).isEmpty());
+        expectedLikes.remove(5_000L);
+        expectedLikes.forEach((id, likes) ->
+                assertEquals(likes, reopened.get(id).orElseThrow().getLikes().size(), "фильм " + id));
+        reopened.close();
+    }
+
+    private MappedEntityStore<Film> openFilmStore() {
+        return new MappedEntityStore<>(directory, "films", 4096, new FilmCodec(), Film::getLikes, Film::setLikes);
+    }
+
+    private MappedFilmStorage openFilms() {
+        return new MappedFilmStorage(directory, 4096, 60_000, 0.5, 1_000_000);
+    }
+
+    private MappedUserStorage openUsers() {
+        return new MappedUserStorage(directory, 4096, 60_000, 0.5, 1_000_000);
+    }
+}
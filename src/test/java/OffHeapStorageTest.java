@@ -0,0 +1,97 @@
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.offheap.OffHeapFilmStorage;
+import ru.yandex.practicum.filmorate.storage.offheap.OffHeapUserStorage;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapStorageTest {
+
+    @Test
+    void film_ShouldRoundTripAllFields() {
+        // Given
+        OffHeapFilmStorage storage = new OffHeapFilmStorage(1024, 0.5);
+        Film film = new Film(null, "Фильм", "Описание", LocalDate.of(2000, 1, 1), 120);
+        film.getLikes().add(7L);
+
+        // When
+        Film created = storage.create(film);
+        Film result = storage.findById(created.getId()).orElseThrow();
+
+        // Then
+        assertEquals(created, result);
+        assertNotSame(created, result);
+    }
+
+    @Test
+    void film_UpdateGrowingLikes_ShouldRelocateRecord() {
+        // Given
+        OffHeapFilmStorage storage = new OffHeapFilmStorage(1024, 1.0);
+        Film film = storage.create(new Film(null, "Film", "Description", LocalDate.of(2000, 1, 1), 120));
+
+        // When
+        for (long userId = 1; userId <= 100; userId++) {
+            Film stored = storage.findById(film.getId()).orElseThrow();
+            stored.getLikes().add(userId);
+            storage.update(stored);
+        }
+
+        // Then
+        assertEquals(100, storage.findById(film.getId()).orElseThrow().getLikes().size());
+        assertEquals(1, storage.findAll().size());
+        assertTrue(storage.getStore().getGarbageBytes() > 0);
+    }
+
+    @Test
+    void film_ManyRelocations_ShouldCompactChunksAndKeepData() {
+        // Given
+        OffHeapFilmStorage compacted = new OffHeapFilmStorage(1024, 0.5);
+        OffHeapFilmStorage uncompacted = new OffHeapFilmStorage(1024, 1.0);
+
+        // When
+        for (OffHeapFilmStorage storage : List.of(compacted, uncompacted)) {
+            for (int i = 0; i < 20; i++) {
+                storage.create(new Film(null, "Film " + i, "Description", LocalDate.of(2000, 1, 1), 120));
+            }
+            for (long userId = 1; userId <= 200; userId++) {
+                for (long filmId = 1 + userId / 50; filmId <= 20; filmId++) {
+                    Film stored = storage.findById(filmId).orElseThrow();
+                    stored.getLikes().add(userId);
+                    storage.update(stored);
+                }
+                if (userId % 50 == 0) {
+                    storage.delete(userId / 50); // Удаление тоже оставляет мусор
+                }
+            }
+        }
+
+        // Then
+        assertEquals(16, compacted.findAll().size());
+        for (long filmId = 5; filmId <= 20; filmId++) {
+            assertEquals(200, compacted.findById(filmId).orElseThrow().getLikes().size());
+        }
+        assertTrue(compacted.getStore().getAllocatedBytes() * 2 < uncompacted.getStore().getAllocatedBytes(),
+                "сжатие должно освобождать чанки: " + compacted.getStore().getAllocatedBytes() + " против "
+                        + uncompacted.getStore().getAllocatedBytes());
+        assertTrue(compacted.getStore().getGarbageBytes() < compacted.getStore().getAllocatedBytes());
+    }
+
+    @Test
+    void user_DeleteAndUpdateMissing_ShouldBehaveLikeInMemoryStorage() {
+        // Given
+        OffHeapUserStorage storage = new OffHeapUserStorage(1024, 0.5);
+        User user = storage.create(new User(null, "login", "mail@mail.ru", null, LocalDate.of(1990, 1, 1)));
+
+        // When
+        storage.delete(user.getId());
+
+        // Then
+        assertTrue(storage.findById(user.getId()).isEmpty());
+        assertThrows(NotFoundException.class, () -> storage.update(user));
+    }
+}
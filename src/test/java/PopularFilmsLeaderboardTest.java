@@ -0,0 +1,73 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.EntityType;
+import ru.yandex.practicum.filmorate.model.Event;
+import ru.yandex.practicum.filmorate.model.EventType;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.PopularFilmsLeaderboard;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PopularFilmsLeaderboardTest {
+
+    private InMemoryFilmStorage filmStorage;
+    private PopularFilmsLeaderboard leaderboard;
+
+    @BeforeEach
+    void setUp() {
+        filmStorage = new InMemoryFilmStorage();
+        leaderboard = new PopularFilmsLeaderboard(filmStorage, 2, 10_000, 60_000, 0);
+        leaderboard.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        leaderboard.shutdown();
+    }
+
+    @Test
+    void getTop_ShouldReturnMostLikedFilmsInOrder() {
+        // Given
+        Film first = createFilm(1);
+        Film second = createFilm(3);
+        Film third = createFilm(2);
+        leaderboard.onEvent(new Event(EntityType.FILM, EventType.CREATE, third.getId(), null));
+
+        // When
+        List<Film> result = leaderboard.getTop(10);
+
+        // Then
+        assertEquals(List.of(second.getId(), third.getId()), result.stream().map(Film::getId).toList());
+        assertFalse(result.contains(first));
+    }
+
+    @Test
+    void getTop_WithZeroStaleness_ShouldSeeLikeImmediately() {
+        // Given
+        Film film = createFilm(0);
+        leaderboard.onEvent(new Event(EntityType.FILM, EventType.CREATE, film.getId(), null));
+        assertEquals(1, leaderboard.getTop(1).size());
+        Film other = createFilm(0);
+        other.getLikes().add(1L);
+
+        // When
+        leaderboard.onEvent(new Event(EntityType.FILM, EventType.LIKE, other.getId(), 1L));
+        List<Film> result = leaderboard.getTop(1);
+
+        // Then
+        assertEquals(other.getId(), result.get(0).getId());
+    }
+
+    private Film createFilm(int likes) {
+        Film film = filmStorage.create(new Film(null, "Film", "Description", LocalDate.of(2000, 1, 1), 100));
+        for (long userId = 1; userId <= likes; userId++) {
+            film.getLikes().add(userId);
+        }
+        return film;
+    }
+}
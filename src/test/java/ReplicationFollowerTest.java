@@ -0,0 +1,124 @@
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ru.yandex.practicum.filmorate.model.EntityType;
+import ru.yandex.practicum.filmorate.model.Event;
+import ru.yandex.practicum.filmorate.model.EventType;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.replication.Mutation;
+import ru.yandex.practicum.filmorate.replication.MutationType;
+import ru.yandex.practicum.filmorate.replication.ReplicationFollower;
+import ru.yandex.practicum.filmorate.service.EntityLocks;
+import ru.yandex.practicum.filmorate.service.StatisticsService;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplicationFollowerTest {
+    private final ObjectMapper mapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+    private final InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+    private final InMemoryUserStorage userStorage = new InMemoryUserStorage();
+    private final EntityLocks locks = new EntityLocks(16);
+    private final StatisticsService statistics = new StatisticsService(filmStorage, userStorage, locks, 10, 10, 7);
+    private final List<Event> events = new CopyOnWriteArrayList<>();
+    private ServerSocket leader;
+    private ReplicationFollower follower;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        leader = new ServerSocket(0);
+        follower = new ReplicationFollower(filmStorage, userStorage, mapper,
+                event -> events.add((Event) event), locks, statistics, new SimpleMeterRegistry(),
+                "127.0.0.1", leader.getLocalPort(), 100);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        follower.shutdown();
+        leader.close();
+    }
+
+    @Test
+    void snapshot_ShouldKeepServingOldDataAndRemoveMissingAtEnd() throws Exception {
+        // Given
+        Film kept = filmStorage.create(new Film(null, "Old", "Description", LocalDate.of(2000, 1, 1), 100));
+        Film removed = filmStorage.create(new Film(null, "Removed", "Description", LocalDate.of(2000, 1, 1), 100));
+        statistics.rebuild();
+        follower.start();
+
+        try (Socket connection = leader.accept();
+             Writer writer = new OutputStreamWriter(connection.getOutputStream(), StandardCharsets.UTF_8)) {
+            new BufferedReader(new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8)).readLine();
+            Film snapshotFilm = new Film(kept.getId(), "New", "Description", LocalDate.of(2000, 1, 1), 100);
+            snapshotFilm.getLikes().add(3L);
+
+            // When
+            write(writer, 5, control(MutationType.RESET));
+            write(writer, 0, put(snapshotFilm));
+            awaitTrue(() -> "New".equals(filmStorage.findById(kept.getId()).orElseThrow().getName()));
+
+            // Then
+            assertTrue(follower.isSnapshotInProgress());
+            assertTrue(filmStorage.findById(removed.getId()).isPresent());
+
+            // When
+            write(writer, 5, control(MutationType.SNAPSHOT_END));
+
+            // Then
+            assertTrue(follower.awaitApplied(7, 5, 5_000));
+            assertFalse(follower.isSnapshotInProgress());
+            assertTrue(filmStorage.findById(removed.getId()).isEmpty());
+            assertEquals(List.of(EventType.UPDATE, EventType.DELETE), events.stream().map(Event::getType).toList());
+            assertTrue(events.stream().allMatch(Event::isReplicated));
+            assertEquals(1, events.get(0).getEntityDegree());
+            assertEquals(removed.getId(), events.get(1).getEntityId());
+            assertEquals(1L, statistics.getStats().get("likes"));
+        }
+    }
+
+    private Mutation control(MutationType type) {
+        Mutation mutation = new Mutation(type, 0);
+        mutation.setEpoch(7L);
+        return mutation;
+    }
+
+    private Mutation put(Film film) {
+        Mutation mutation = new Mutation(MutationType.PUT, 0);
+        mutation.setEntity(EntityType.FILM);
+        mutation.setId(film.getId());
+        mutation.setFilm(film);
+        return mutation;
+    }
+
+    private void write(Writer writer, long seq, Mutation mutation) throws Exception {
+        writer.write(seq + " " + mapper.writeValueAsString(mutation) + "\n");
+        writer.flush();
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "реплика не применила мутацию за 5 секунд");
+            Thread.onSpinWait();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.serialization.FieldProjection;
+import ru.yandex.practicum.filmorate.serialization.ProjectedBody;
+import ru.yandex.practicum.filmorate.serialization.VarintWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// mvn test -Pbenchmark -Dtest=SerializationBenchmarkTest
+@Tag("benchmark")
+class SerializationBenchmarkTest {
+    private static final int FILMS = 1_000;
+    private static final int LIKES_PER_FILM = 500;
+    private static final long MEASURE_NANOS = 2_000_000_000L;
+
+    private static List<Film> films;
+
+    @BeforeAll
+    static void setUp() {
+        Random random = new Random(42);
+        films = new ArrayList<>();
+        for (long id = 1; id <= FILMS; id++) {
+            Film film = new Film(id, "Film " + id, "Description of film number " + id,
+                    LocalDate.of(2000, 1, 1).plusDays(id), 90 + (int) (id % 60));
+            while (film.getLikes().size() < LIKES_PER_FILM) {
+                film.getLikes().add(1L + random.nextInt(100_000));
+            }
+            films.add(film);
+        }
+    }
+
+    @Test
+    void compareFormats() {
+        ObjectMapper json = Jackson2ObjectMapperBuilder.json().build();
+        ObjectMapper smile = Jackson2ObjectMapperBuilder.json().factory(new SmileFactory()).build();
+        ObjectMapper cbor = Jackson2ObjectMapperBuilder.json().factory(new CBORFactory()).build();
+
+        long jsonSize = report("JSON", list -> write(json, list));
+        long smileSize = report("Smile", list -> write(smile, list));
+        long cborSize = report("CBOR", list -> write(cbor, list));
+        long varintSize = report("varint", SerializationBenchmarkTest::writeVarint);
+        FieldProjection.Writer<Film> idName = FieldProjection.FILM.writer("id,name,likeCount");
+        long projectedSize = report("JSON id,name,likeCount", list -> write(json, new ProjectedBody<>(list, idName)));
+
+        assertTrue(varintSize < smileSize && varintSize < cborSize && varintSize < jsonSize);
+        assertTrue(projectedSize < jsonSize / 10);
+    }
+
+    private static long report(String name, Function<List<Film>, byte[]> serializer) {
+        byte[] payload = serializer.apply(films);
+        for (int i = 0; i < 20; i++) {
+            serializer.apply(films);
+        }
+        long started = System.nanoTime();
+        int operations = 0;
+        while (System.nanoTime() - started < MEASURE_NANOS) {
+            serializer.apply(films);
+            operations++;
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+        System.out.printf("%-22s payload=%,10d B  gzip=%,10d B  throughput=%8.1f lists/s  %8.1f MB/s%n", name,
+                payload.length, gzip(payload).length, operations / seconds,
+                operations * (double) payload.length / seconds / 1_000_000);
+        return payload.length;
+    }
+
+    private static byte[] write(ObjectMapper mapper, Object body) {
+        try {
+            return mapper.writeValueAsBytes(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] writeVarint(List<Film> list) {
+        VarintWriter out = new VarintWriter(1 << 20);
+        out.writeVarint(list.size());
+        list.forEach(out::writeFilm);
+        return out.toByteArray();
+    }
+
+    private static byte[] gzip(byte[] payload) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(payload);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,98 @@
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// mvn package -Pfast-start -DskipTests && mvn test -Pbenchmark -Dtest=StartupBenchmarkTest
+@Tag("benchmark")
+class StartupBenchmarkTest {
+    private static final int RUNS = 3;
+    private static final Path FAST_START = Path.of("target", "fast-start").toAbsolutePath();
+    private static final Path JAR = FAST_START.resolve("filmorate-0.0.1-SNAPSHOT-fast-start.jar");
+    private static final Path ARCHIVE = FAST_START.resolve("filmorate.jsa");
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Test
+    void timeToFirstRequest() throws Exception {
+        Assumptions.assumeTrue(Files.exists(JAR) && Files.exists(ARCHIVE),
+                "нет сборки fast-start: mvn package -Pfast-start -DskipTests");
+
+        long plain = report("JIT only", "-jar", JAR.toString());
+        long aot = report("AOT", "-Dspring.aot.enabled=true", "-jar", JAR.toString());
+        long aotCds = report("AOT + AppCDS", "-XX:SharedArchiveFile=" + ARCHIVE, "-Dspring.aot.enabled=true",
+                "-jar", JAR.toString());
+        report("AOT + AppCDS + warm-up", "-XX:SharedArchiveFile=" + ARCHIVE, "-Dspring.aot.enabled=true",
+                "-jar", JAR.toString(), "--filmorate.warmup.enabled=true");
+
+        assertTrue(aotCds < plain, "AOT + AppCDS должен запускаться быстрее обычного запуска");
+        assertTrue(aot <= plain * 1.2);
+    }
+
+    // Медиана времени от старта процесса до первого успешного GET /films
+    private long report(String name, String... arguments) throws Exception {
+        long[] millis = new long[RUNS];
+        for (int run = 0; run < RUNS; run++) {
+            millis[run] = timeToFirstRequest(arguments);
+        }
+        Arrays.sort(millis);
+        System.out.printf("%-24s time to first request: median %d ms, runs %s%n",
+                name, millis[RUNS / 2], Arrays.toString(millis));
+        return millis[RUNS / 2];
+    }
+
+    private long timeToFirstRequest(String... arguments) throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+        command.add("-Xshare:auto");
+        command.addAll(Arrays.asList(arguments));
+        command.add("--server.port=" + port);
+        command.add("--logging.level.root=WARN");
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/films")).build();
+        long started = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .directory(FAST_START.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        try {
+            while (true) {
+                assertTrue(process.isAlive(), "приложение завершилось при запуске");
+                assertTrue(System.nanoTime() - started < TimeUnit.SECONDS.toNanos(120));
+                try {
+                    HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                    if (response.statusCode() == 200) {
+                        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+                    }
+                } catch (IOException e) {
+                    // сервер ещё не слушает порт
+                }
+                Thread.sleep(10);
+            }
+        } finally {
+            process.destroy();
+            if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+}
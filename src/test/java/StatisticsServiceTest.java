@@ -0,0 +1,224 @@
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import ru.yandex.practicum.filmorate.model.EntityType;
+import ru.yandex.practicum.filmorate.model.Event;
+import ru.yandex.practicum.filmorate.model.EventType;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.CascadeDeletionExecutor;
+import ru.yandex.practicum.filmorate.service.EntityLocks;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.LikeIndex;
+import ru.yandex.practicum.filmorate.service.LikeWriteBehindQueue;
+import ru.yandex.practicum.filmorate.service.PopularFilmsLeaderboard;
+import ru.yandex.practicum.filmorate.service.StatisticsService;
+import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.stats.DegreeHistogram;
+import ru.yandex.practicum.filmorate.stats.HyperLogLog;
+import ru.yandex.practicum.filmorate.stats.SpaceSaving;
+import ru.yandex.practicum.filmorate.storage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.InMemoryUserStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatisticsServiceTest {
+
+    private InMemoryFilmStorage filmStorage;
+    private StatisticsService statisticsService;
+
+    @BeforeEach
+    void setUp() {
+        filmStorage = new InMemoryFilmStorage();
+        Film film = new Film(null, "Existing", "Description", LocalDate.of(2000, 1, 1), 100);
+        film.getLikes().addAll(List.of(1L, 2L, 3L));
+        filmStorage.create(film);
+        statisticsService = new StatisticsService(filmStorage, new InMemoryUserStorage(), new EntityLocks(16), 14, 10, 7);
+        statisticsService.rebuild();
+    }
+
+    @Test
+    void onEvent_ShouldMaintainAggregatesIncrementally() {
+        // Given
+        statisticsService.onEvent(new Event(EntityType.FILM, EventType.CREATE, 2L, null, 0, null));
+        statisticsService.onEvent(new Event(EntityType.USER, EventType.CREATE, 1L, null, 0, null));
+        statisticsService.onEvent(new Event(EntityType.USER, EventType.CREATE, 2L, null, 0, null));
+
+        // When
+        statisticsService.onEvent(new Event(EntityType.FILM, EventType.LIKE, 2L, 7L, 1, null));
+        statisticsService.onEvent(new Event(EntityType.FILM, EventType.LIKE, 1L, 7L, 4, null));
+        statisticsService.onEvent(new Event(EntityType.FILM, EventType.UNLIKE, 1L, 2L, 3, null));
+        statisticsService.onEvent(new Event(EntityType.USER, EventType.FRIEND_ADD, 1L, 2L, 1, 1));
+        Map<String, Object> stats = statisticsService.getStats();
+
+        // Then
+        assertEquals(2L, stats.get("films"));
+        assertEquals(4L, stats.get("likes"));
+        assertEquals(1L, stats.get("friendships"));
+        assertEquals(1.0, ((Map<?, ?>) stats.get("friendsPerUser")).get("mean"));
+        assertEquals(4L, stats.get("distinctLikers"));
+        assertEquals(7L, ((Map<?, ?>) ((List<?>) stats.get("topLikers")).get(0)).get("id"));
+        assertEquals(1L, ((Map<?, ?>) stats.get("dailyActiveLikers")).values().iterator().next());
+
+        // When
+        statisticsService.onEvent(new Event(EntityType.FILM, EventType.DELETE, 1L, null, 3, null));
+
+        // Then
+        assertEquals(1L, statisticsService.getStats().get("films"));
+        assertEquals(1L, statisticsService.getStats().get("likes"));
+    }
+
+    @Test
+    void rebuild_WithEventsDuringPass_ShouldCountEachLikeOnce() {
+        // Given
+        StatisticsService[] service = new StatisticsService[1];
+        InMemoryFilmStorage storage = new InMemoryFilmStorage() {
+            @Override
+            public void forEachId(LongConsumer action) {
+                action.accept(1L);
+                // Фильм 2 ещё не прочитан проходом, фильм 1 уже прочитан
+                findById(2L).orElseThrow().getLikes().add(9L);
+                service[0].onEvent(new Event(EntityType.FILM, EventType.LIKE, 2L, 9L, 1, null));
+                findById(1L).orElseThrow().getLikes().add(9L);
+                service[0].onEvent(new Event(EntityType.FILM, EventType.LIKE, 1L, 9L, 1, null));
+                action.accept(2L);
+            }
+        };
+        storage.create(new Film(null, "First", "Description", LocalDate.of(2000, 1, 1), 100));
+        storage.create(new Film(null, "Second", "Description", LocalDate.of(2000, 1, 1), 100));
+        service[0] = new StatisticsService(storage, new InMemoryUserStorage(), new EntityLocks(16), 14, 10, 7);
+
+        // When
+        service[0].rebuild();
+        Map<String, Object> stats = service[0].getStats();
+
+        // Then
+        assertEquals(2L, stats.get("films"));
+        assertEquals(2L, stats.get("likes"));
+        assertEquals(2L, ((Map<?, ?>) ((List<?>) stats.get("topLikers")).get(0)).get("count"));
+        assertEquals(1L, ((Map<?, ?>) stats.get("dailyActiveLikers")).values().iterator().next());
+    }
+
+    @Test
+    void addLike_Concurrently_ShouldKeepLikesHistogramExact() throws Exception {
+        // Given
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        ApplicationEventPublisher publisher = event -> statisticsService.onEvent((Event) event);
+        EntityLocks entityLocks = new EntityLocks(16);
+        CascadeDeletionExecutor cascadeExecutor = new CascadeDeletionExecutor(1000, 500);
+        LikeIndex likeIndex = new LikeIndex(filmStorage);
+        UserService userService = new UserService(userStorage, publisher, cascadeExecutor, entityLocks);
+        FilmService filmService = new FilmService(filmStorage, userService, publisher,
+                new PopularFilmsLeaderboard(filmStorage, 10, 50, 1000, 0), likeIndex, cascadeExecutor,
+                new LikeWriteBehindQueue(filmStorage, userStorage, likeIndex, publisher, entityLocks, new SimpleMeterRegistry(),
+                        false, 1, 16, 16), entityLocks);
+        Film film = filmService.create(new Film(null, "Popular", "Description", LocalDate.of(2000, 1, 1), 100));
+        List<Long> userIds = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            userIds.add(userService.create(new User(null, "user" + i, "user" + i + "@mail.ru", "User",
+                    LocalDate.of(1990, 1, 1))).getId());
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+
+        // When
+        for (Long userId : userIds) {
+            pool.execute(() -> filmService.addLike(film.getId(), userId));
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+        cascadeExecutor.shutdown();
+
+        // Then
+        List<?> histogram = (List<?>) ((Map<?, ?>) statisticsService.getStats().get("likesPerFilm")).get("histogram");
+        assertEquals(List.of(Map.of("from", 2L, "to", 3L, "count", 1L), Map.of("from", 128L, "to", 255L, "count", 1L)),
+                histogram);
+    }
+
+    @Test
+    void hyperLogLog_ShouldEstimateDistinctCountWithinTwoPercent() {
+        // Given
+        HyperLogLog sketch = new HyperLogLog(14);
+
+        // When
+        for (long id = 1; id <= 200_000; id++) {
+            sketch.add(id);
+            sketch.add(id);
+        }
+
+        // Then
+        assertEquals(200_000, sketch.estimate(), 200_000 * 0.02);
+    }
+
+    @Test
+    void degreeHistogram_ShouldEstimateQuantilesWithinBucket() {
+        // Given
+        DegreeHistogram histogram = new DegreeHistogram();
+
+        // When
+        for (int degree = 0; degree < 1000; degree++) {
+            histogram.add(degree);
+        }
+
+        // Then
+        assertEquals(499.5, histogram.getMean());
+        assertEquals(500, histogram.quantile(0.5), 256);
+        assertTrue(histogram.quantile(0.99) >= 512 && histogram.quantile(0.99) <= 1023);
+    }
+
+    @Test
+    void spaceSaving_ShouldKeepHeavyHitters() {
+        // Given
+        SpaceSaving topLikers = new SpaceSaving(20);
+        Random random = new Random(42);
+
+        // When
+        for (int i = 0; i < 100_000; i++) {
+            topLikers.add(i % 4 == 0 ? 1L + random.nextInt(3) : 100L + random.nextInt(10_000));
+        }
+
+        // Then
+        List<Long> top = topLikers.top(3).stream().map(item -> (Long) item.get("id")).sorted().toList();
+        assertEquals(List.of(1L, 2L, 3L), top);
+    }
+
+    @Test
+    void spaceSaving_ConcurrentAdds_ShouldCountExactlyBelowCapacity() throws InterruptedException {
+        // Given
+        SpaceSaving topLikers = new SpaceSaving(20);
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    topLikers.add(i % 5);
+                }
+            });
+        }
+
+        // When
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // Then
+        List<Map<String, Object>> top = topLikers.top(10);
+        assertEquals(5, top.size());
+        for (Map<String, Object> item : top) {
+            assertEquals(8_000L, item.get("count"));
+            assertEquals(0L, item.get("error"));
+        }
+    }
+}
@@ -0,0 +1,89 @@
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.ratelimit.AdaptiveConcurrencyLimiter;
+import ru.yandex.practicum.filmorate.ratelimit.RateLimiterRegistry;
+import ru.yandex.practicum.filmorate.ratelimit.TokenBucket;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketTest {
+
+    @Test
+    void tryAcquire_ShouldAllowBurstThenReject() {
+        // Given
+        TokenBucket bucket = new TokenBucket(10, 3);
+        long now = 1_000_000_000L;
+
+        // When & Then
+        assertTrue(bucket.tryAcquire(now));
+        assertTrue(bucket.tryAcquire(now));
+        assertTrue(bucket.tryAcquire(now));
+        assertFalse(bucket.tryAcquire(now));
+        assertTrue(bucket.tryAcquire(now + 100_000_000L));
+    }
+
+    @Test
+    void evictFull_ShouldDropRefilledBuckets() {
+        // Given
+        RateLimiterRegistry registry = new RateLimiterRegistry(10, 1, 2);
+        long now = 1_000_000_000L;
+        registry.tryAcquire(1L, now);
+        registry.tryAcquire(2L, now);
+
+        // When
+        registry.evictFull(now + 1_000_000_000L);
+
+        // Then
+        assertEquals(0, registry.size());
+    }
+
+    @Test
+    void tryAcquire_WithFullRegistry_ShouldEvictRefilledBucketsBySampling() {
+        // Given
+        RateLimiterRegistry registry = new RateLimiterRegistry(10, 1, 100);
+        long now = 1_000_000_000L;
+        for (long key = 1; key <= 100; key++) {
+            registry.tryAcquire(key, now);
+        }
+
+        // When
+        boolean acquired = registry.tryAcquire(101L, now + 1_000_000_000L);
+
+        // Then
+        assertTrue(acquired);
+        assertTrue(registry.size() > 90, "за один запрос проверяется лишь несколько вёдер");
+        assertFalse(registry.tryAcquire(101L, now + 1_000_000_000L), "новый ключ получил собственное ведро");
+    }
+
+    @Test
+    void tryAcquire_WithFullRegistryAndNothingToEvict_ShouldStillAdmitNewUser() {
+        // Given
+        RateLimiterRegistry registry = new RateLimiterRegistry(10, 1, 100);
+        long now = 1_000_000_000L;
+        for (long key = 1; key <= 100; key++) {
+            registry.tryAcquire(key, now);
+        }
+        assertTrue(registry.tryAcquire(101L, now));
+        assertFalse(registry.tryAcquire(101L, now), "пользователь сверх лимита исчерпал своё запасное ведро");
+
+        // When
+        boolean acquired = registry.tryAcquire(102L, now);
+
+        // Then
+        assertTrue(acquired);
+        assertEquals(100, registry.size());
+    }
+
+    @Test
+    void release_WithSlowRequests_ShouldShrinkLimit() {
+        // Given
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 2, 100, 1_000L, 0.5);
+
+        // When
+        assertTrue(limiter.tryAcquire());
+        limiter.release(5_000L);
+
+        // Then
+        assertEquals(5, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+}
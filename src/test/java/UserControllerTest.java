@@ -156,6 +156,15 @@ class UserControllerTest {
         assertEquals("Пользователь с id=999 не найден", exception.getMessage());
     }
 
+    @Test
+    void delete_ShouldCallService() {
+        // When
+        userController.delete(1L);
+
+        // Then
+        verify(userService, times(1)).delete(1L);
+    }
+
     @Test
     void addFriend_ShouldCallService() {
         // When
@@ -0,0 +1,71 @@
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.serialization.VarintReader;
+import ru.yandex.practicum.filmorate.serialization.VarintWriter;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VarintFormatTest {
+
+    @Test
+    void writeFilm_ShouldBeReadBack() {
+        // Given
+        Film film = new Film(42L, "Фильм", "Описание", LocalDate.of(1895, 12, 28), 50);
+        film.getLikes().addAll(Set.of(3L, 1L, 1_000_000L));
+        VarintWriter writer = new VarintWriter(16);
+
+        // When
+        writer.writeFilm(film);
+        Film decoded = new VarintReader(writer.toByteArray()).readFilm();
+
+        // Then
+        assertEquals(film.getId(), decoded.getId());
+        assertEquals(film.getName(), decoded.getName());
+        assertEquals(film.getDescription(), decoded.getDescription());
+        assertEquals(film.getReleaseDate(), decoded.getReleaseDate());
+        assertEquals(film.getDuration(), decoded.getDuration());
+        assertEquals(film.getLikes(), decoded.getLikes());
+    }
+
+    @Test
+    void writeUser_WithoutName_ShouldBeReadBack() {
+        // Given
+        User user = new User(7L, "login", "user@mail.ru", null, LocalDate.of(2000, 2, 29));
+        user.getFriends().add(8L);
+        VarintWriter writer = new VarintWriter(16);
+
+        // When
+        writer.writeUser(user);
+        User decoded = new VarintReader(writer.toByteArray()).readUser();
+
+        // Then
+        assertEquals(user.getLogin(), decoded.getLogin());
+        assertEquals(user.getEmail(), decoded.getEmail());
+        assertEquals(user.getName(), decoded.getName());
+        assertEquals(user.getBirthday(), decoded.getBirthday());
+        assertEquals(Set.of(8L), decoded.getFriends());
+    }
+
+    @Test
+    void writeIdSet_WithDenseIds_ShouldTakeOneByteAfterFirst() {
+        // Given
+        Set<Long> ids = new HashSet<>();
+        for (long id = 1_000; id < 1_100; id++) {
+            ids.add(id);
+        }
+        VarintWriter writer = new VarintWriter(16);
+
+        // When
+        writer.writeIdSet(ids);
+
+        // Then
+        // Размер множества (1 байт), первый id (2 байта) и 99 разностей по одному байту
+        assertEquals(1 + 2 + 99, writer.size());
+        assertEquals(ids, new VarintReader(writer.toByteArray()).readIdSet());
+    }
+}
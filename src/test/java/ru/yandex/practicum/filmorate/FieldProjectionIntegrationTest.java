@@ -0,0 +1,67 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class FieldProjectionIntegrationTest {
+
+    @Autowired
+    private TestRestTemplate rest;
+
+    @Test
+    void shouldReturnOnlyRequestedFields() {
+        // Given
+        User user = rest.postForObject("/users",
+                new User(null, "projected", "projected@mail.ru", "Projected", LocalDate.of(1990, 1, 1)), User.class);
+        User friend = rest.postForObject("/users",
+                new User(null, "friend", "friend@mail.ru", "Friend", LocalDate.of(1990, 1, 1)), User.class);
+        Film film = rest.postForObject("/films",
+                new Film(null, "Projected", "Long description", LocalDate.of(2000, 1, 1), 100), Film.class);
+        rest.exchange("/films/" + film.getId() + "/like/" + user.getId(), HttpMethod.PUT, null, Void.class);
+        rest.exchange("/users/" + user.getId() + "/friends/" + friend.getId(), HttpMethod.PUT, null, Void.class);
+
+        // When
+        String projectedFilm = rest.getForObject("/films/" + film.getId() + "?fields=id,name,likeCount", String.class);
+        String friends = rest.getForObject("/users/" + user.getId() + "/friends?fields=id,login", String.class);
+        String fullFilm = rest.getForObject("/films/" + film.getId(), String.class);
+
+        // Then
+        assertEquals("{\"id\":" + film.getId() + ",\"name\":\"Projected\",\"likeCount\":1}", projectedFilm);
+        assertEquals("[{\"id\":" + friend.getId() + ",\"login\":\"friend\"}]", friends);
+        assertTrue(fullFilm.contains("\"description\":\"Long description\""));
+    }
+
+    @Test
+    void shouldRejectUnknownField() {
+        // When
+        ResponseEntity<String> response = rest.getForEntity("/films?fields=id,friends", String.class);
+
+        // Then
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertTrue(response.getBody().contains("friends"));
+    }
+
+    @Test
+    void shouldNotProjectWriteResponses() {
+        // When
+        ResponseEntity<Film> response = rest.postForEntity("/films?fields=bogus",
+                new Film(null, "Written", "Description", LocalDate.of(2000, 1, 1), 100), Film.class);
+
+        // Then
+        assertTrue(response.getStatusCode().is2xxSuccessful());
+        assertEquals("Written", response.getBody().getName());
+        assertEquals("Description", response.getBody().getDescription());
+    }
+}
@@ -0,0 +1,103 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.LikeWriteBehindQueue;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// mvn test -Pbenchmark -Dtest=LikeWriteBehindBenchmarkTest
+@Tag("benchmark")
+class LikeWriteBehindBenchmarkTest {
+    private static final int THREADS = 64;
+    private static final int USERS_PER_THREAD = 2_000;
+    private static final int ROUNDS = 3;
+
+    @Test
+    void hotFilmThroughput() throws InterruptedException {
+        double[] direct = measure(false);
+        double[] writeBehind = measure(true);
+        System.out.printf("Hot film likes, %d threads: accepted direct %.0f ops/s, write-behind %.0f ops/s (x%.1f); "
+                        + "applied direct %.0f ops/s, write-behind %.0f ops/s (x%.1f)%n", THREADS,
+                direct[0], writeBehind[0], writeBehind[0] / direct[0],
+                direct[1], writeBehind[1], writeBehind[1] / direct[1]);
+    }
+
+    // Возвращает лучшие за раунды {принято операций в секунду, применено операций в секунду}
+    private double[] measure(boolean writeBehind) throws InterruptedException {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(FilmorateApplication.class).run(
+                "--spring.main.web-application-type=none",
+                "--spring.jmx.enabled=false",
+                "--filmorate.likes.write-behind.enabled=" + writeBehind,
+                "--filmorate.likes.write-behind.max-pending=" + THREADS * USERS_PER_THREAD)) {
+            FilmService filmService = context.getBean(FilmService.class);
+            UserStorage userStorage = context.getBean(UserStorage.class);
+            LikeWriteBehindQueue queue = context.getBean(LikeWriteBehindQueue.class);
+            List<Long> userIds = new ArrayList<>();
+            for (int i = 0; i < THREADS * USERS_PER_THREAD; i++) {
+                userIds.add(userStorage.create(new User(null, "user" + i, "user" + i + "@mail.ru", "User",
+                        LocalDate.of(1990, 1, 1))).getId());
+            }
+
+            double[] best = new double[2];
+            int operations = THREADS * USERS_PER_THREAD;
+            for (int round = 0; round < ROUNDS; round++) {
+                Long filmId = filmService.create(new Film(null, "Hot " + round, "Description",
+                        LocalDate.of(2000, 1, 1), 100)).getId();
+                long started = System.nanoTime();
+                run(threadIndex -> {
+                    for (int i = 0; i < USERS_PER_THREAD; i++) {
+                        filmService.addLike(filmId, userIds.get(threadIndex * USERS_PER_THREAD + i));
+                    }
+                });
+                double accepted = operations / ((System.nanoTime() - started) / 1e9);
+                assertTrue(queue.awaitApplied(60_000));
+                double applied = operations / ((System.nanoTime() - started) / 1e9);
+                best[0] = Math.max(best[0], accepted);
+                best[1] = Math.max(best[1], applied);
+                // Прямая запись гоняет HashSet лайков без синхронизации, поэтому часть лайков может потеряться
+                System.out.printf("%s round %d: accepted %.0f ops/s, applied %.0f ops/s, likes %d of %d%n",
+                        writeBehind ? "write-behind" : "direct", round, accepted, applied,
+                        filmService.getFilmById(filmId).getLikes().size(), operations);
+            }
+            return best;
+        }
+    }
+
+    private static void run(ThreadTask task) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int threadIndex = t;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    task.run(threadIndex);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    private interface ThreadTask {
+        void run(int threadIndex);
+    }
+}
@@ -0,0 +1,45 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// mvn test -Pbenchmark -Dtest=NotFoundBenchmarkTest
+@Tag("benchmark")
+@SpringBootTest(properties = {"logging.level.org.zalando.logbook=OFF",
+        "logging.level.ru.yandex.practicum.filmorate.controller=WARN"})
+@AutoConfigureMockMvc
+class NotFoundBenchmarkTest {
+    private static final long WARMUP_NANOS = 3_000_000_000L;
+    private static final long MEASURE_NANOS = 5_000_000_000L;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void notFoundThroughput() throws Exception {
+        run(WARMUP_NANOS);
+        long requests = run(MEASURE_NANOS);
+        System.out.printf("404 throughput: %.0f requests/s%n", requests / (MEASURE_NANOS / 1e9));
+    }
+
+    private long run(long durationNanos) throws Exception {
+        long started = System.nanoTime();
+        long requests = 0;
+        while (System.nanoTime() - started < durationNanos) {
+            long id = ThreadLocalRandom.current().nextLong(1_000, 1_000_000);
+            String path = (requests & 1) == 0 ? "/films/" + id : "/users/" + id;
+            mockMvc.perform(get(path)).andExpect(status().isNotFound());
+            requests++;
+        }
+        return requests;
+    }
+}
@@ -0,0 +1,207 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.PayloadApplicationEvent;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import ru.yandex.practicum.filmorate.model.Event;
+import ru.yandex.practicum.filmorate.model.EventType;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.replication.ReplicaInterceptor;
+import ru.yandex.practicum.filmorate.replication.ReplicationLeader;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplicationIntegrationTest {
+    private static ConfigurableApplicationContext leader;
+    private static ConfigurableApplicationContext follower;
+    private static final TestRestTemplate rest = new TestRestTemplate();
+
+    @BeforeAll
+    static void startInstances() {
+        leader = start("leader", 0);
+        follower = start("follower", leader.getBean(ReplicationLeader.class).getPort());
+    }
+
+    @AfterAll
+    static void stopInstances() {
+        follower.close();
+        leader.close();
+    }
+
+    @Test
+    void followerShouldServeLeaderWritesWithReadYourWritesToken() {
+        // Given
+        ResponseEntity<User> user = rest.postForEntity(url(leader, "/users"),
+                new User(null, "reader", "reader@mail.ru", "Reader", LocalDate.of(1990, 1, 1)), User.class);
+        ResponseEntity<Film> film = rest.postForEntity(url(leader, "/films"),
+                new Film(null, "Replicated", "Description", LocalDate.of(2000, 1, 1), 100), Film.class);
+        Long filmId = film.getBody().getId();
+
+        // When
+        ResponseEntity<Void> like = rest.exchange(url(leader, "/films/" + filmId + "/like/" + user.getBody().getId()),
+                HttpMethod.PUT, null, Void.class);
+        String token = like.getHeaders().getFirst(ReplicationLeader.SEQ_HEADER);
+        ResponseEntity<List<Film>> popular = rest.exchange(url(follower, "/films/popular?count=1"),
+                HttpMethod.GET, withToken(token), new ParameterizedTypeReference<>() {});
+
+        // Then
+        assertEquals(leaderEpoch() + ":", token.substring(0, token.indexOf(':') + 1));
+        assertEquals(HttpStatus.OK, popular.getStatusCode());
+        assertEquals(filmId, popular.getBody().get(0).getId());
+        assertEquals(1, popular.getBody().get(0).getLikes().size());
+    }
+
+    @Test
+    void followerShouldPublishTypedEventsWithDegrees() {
+        // Given
+        List<Event> events = new CopyOnWriteArrayList<>();
+        follower.addApplicationListener(event -> {
+            if (event instanceof PayloadApplicationEvent<?> payload && payload.getPayload() instanceof Event replicated) {
+                events.add(replicated);
+            }
+        });
+        User user = rest.postForObject(url(leader, "/users"),
+                new User(null, "typed", "typed@mail.ru", "Typed", LocalDate.of(1990, 1, 1)), User.class);
+        User friend = rest.postForObject(url(leader, "/users"),
+                new User(null, "typedFriend", "typed-friend@mail.ru", "Friend", LocalDate.of(1990, 1, 1)), User.class);
+        Film film = rest.postForObject(url(leader, "/films"),
+                new Film(null, "Typed", "Description", LocalDate.of(2000, 1, 1), 100), Film.class);
+
+        // When
+        rest.exchange(url(leader, "/users/" + user.getId() + "/friends/" + friend.getId()),
+                HttpMethod.PUT, null, Void.class);
+        rest.exchange(url(leader, "/films/" + film.getId() + "/like/" + user.getId()), HttpMethod.PUT, null, Void.class);
+        ResponseEntity<Void> unlike = rest.exchange(url(leader, "/films/" + film.getId() + "/like/" + user.getId()),
+                HttpMethod.DELETE, null, Void.class);
+        rest.exchange(url(follower, "/films/" + film.getId()), HttpMethod.GET,
+                withToken(unlike.getHeaders().getFirst(ReplicationLeader.SEQ_HEADER)), String.class);
+
+        // Then
+        Event friendAdd = events.stream().filter(event -> event.getType() == EventType.FRIEND_ADD).findFirst()
+                .orElseThrow();
+        Event liked = events.stream().filter(event -> event.getType() == EventType.LIKE).findFirst().orElseThrow();
+        Event unliked = events.stream().filter(event -> event.getType() == EventType.UNLIKE).findFirst()
+                .orElseThrow();
+        assertEquals(user.getId(), friendAdd.getEntityId());
+        assertEquals(friend.getId(), friendAdd.getRelatedId());
+        assertEquals(1, friendAdd.getEntityDegree());
+        assertEquals(1, friendAdd.getRelatedDegree());
+        assertEquals(film.getId(), liked.getEntityId());
+        assertEquals(user.getId(), liked.getRelatedId());
+        assertEquals(1, liked.getEntityDegree());
+        assertEquals(0, unliked.getEntityDegree());
+    }
+
+    @Test
+    void followerShouldReplicateDeletes() {
+        // Given
+        Film film = rest.postForObject(url(leader, "/films"),
+                new Film(null, "Removed", "Description", LocalDate.of(2000, 1, 1), 100), Film.class);
+
+        // When
+        ResponseEntity<Void> deleted = rest.exchange(url(leader, "/films/" + film.getId()),
+                HttpMethod.DELETE, null, Void.class);
+        ResponseEntity<String> response = rest.exchange(url(follower, "/films/" + film.getId()), HttpMethod.GET,
+                withToken(deleted.getHeaders().getFirst(ReplicationLeader.SEQ_HEADER)), String.class);
+
+        // Then
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+
+    @Test
+    void followerShouldRejectWritesAndUnreachableTokens() {
+        // When
+        ResponseEntity<String> write = rest.postForEntity(url(follower, "/films"),
+                new Film(null, "Rejected", "Description", LocalDate.of(2000, 1, 1), 100), String.class);
+        ResponseEntity<String> read = rest.exchange(url(follower, "/films"), HttpMethod.GET,
+                withToken(leaderEpoch() + ":" + Long.MAX_VALUE), String.class);
+        ResponseEntity<String> malformed = rest.exchange(url(follower, "/films"), HttpMethod.GET,
+                withToken("latest"), String.class);
+        ResponseEntity<String> withoutEpoch = rest.exchange(url(follower, "/films"), HttpMethod.GET,
+                withToken("42"), String.class);
+
+        // Then
+        assertEquals(HttpStatus.METHOD_NOT_ALLOWED, write.getStatusCode());
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, read.getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, malformed.getStatusCode());
+        assertEquals(HttpStatus.BAD_REQUEST, withoutEpoch.getStatusCode());
+    }
+
+    @Test
+    void followerShouldAcceptTokenFromPreviousLeaderEpoch() {
+        // When
+        ResponseEntity<String> response = rest.exchange(url(follower, "/films"), HttpMethod.GET,
+                withToken((leaderEpoch() - 1) + ":" + Long.MAX_VALUE), String.class);
+
+        // Then
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertTrue(response.getHeaders().getFirst(ReplicationLeader.SEQ_HEADER).startsWith(leaderEpoch() + ":"));
+    }
+
+    @Test
+    void lateFollowerShouldCatchUpFromSnapshot() {
+        // Given
+        User user = rest.postForObject(url(leader, "/users"),
+                new User(null, "early", "early@mail.ru", "Early", LocalDate.of(1990, 1, 1)), User.class);
+        long headSeq = leader.getBean(ReplicationLeader.class).getHeadSeq();
+
+        // When
+        try (ConfigurableApplicationContext late = start("follower",
+                leader.getBean(ReplicationLeader.class).getPort())) {
+            ResponseEntity<User> response = rest.exchange(url(late, "/users/" + user.getId()), HttpMethod.GET,
+                    withToken(leaderEpoch() + ":" + headSeq), User.class);
+            Map<?, ?> status = rest.getForObject(url(late, "/replication/status"), Map.class);
+
+            // Then
+            assertEquals(HttpStatus.OK, response.getStatusCode());
+            assertEquals("early", response.getBody().getLogin());
+            assertEquals("follower", status.get("role"));
+            assertEquals(true, status.get("connected"));
+        }
+    }
+
+    private static ConfigurableApplicationContext start(String role, int replicationPort) {
+        String portProperty = role.equals("leader") ? "filmorate.replication.port" : "filmorate.replication.leader-port";
+        return new SpringApplicationBuilder(FilmorateApplication.class).run(
+                "--server.port=0",
+                "--spring.jmx.enabled=false",
+                "--filmorate.replication.role=" + role,
+                "--" + portProperty + "=" + replicationPort,
+                "--filmorate.replication.reconnect-ms=100",
+                "--filmorate.replication.read-timeout-ms=2000",
+                // Популярные фильмы проверяются сразу после лайка, поэтому ждём свежий снимок
+                "--filmorate.popular.max-staleness-ms=0");
+    }
+
+    private static String url(ConfigurableApplicationContext context, String path) {
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        return "http://localhost:" + port + path;
+    }
+
+    private static long leaderEpoch() {
+        return leader.getBean(ReplicationLeader.class).getEpoch();
+    }
+
+    private static HttpEntity<Void> withToken(String seq) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(ReplicaInterceptor.MIN_SEQ_HEADER, seq);
+        return new HttpEntity<>(headers);
+    }
+}
@@ -0,0 +1,89 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.UserStorage;
+import ru.yandex.practicum.filmorate.storage.sharded.ShardNode;
+import ru.yandex.practicum.filmorate.storage.sharded.ShardedFilmStorage;
+import ru.yandex.practicum.filmorate.storage.sharded.ShardedUserStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "filmorate.storage.type=sharded",
+        "filmorate.storage.sharded.shards=4"})
+class ShardedStorageIntegrationTest {
+
+    @Autowired
+    private TestRestTemplate rest;
+
+    @Autowired
+    private UserStorage userStorage;
+
+    @Autowired
+    private FilmStorage filmStorage;
+
+    @Test
+    void shouldServeCrossShardRequests() {
+        // Given
+        ShardedUserStorage users = assertInstanceOf(ShardedUserStorage.class, userStorage);
+        ShardedFilmStorage films = assertInstanceOf(ShardedFilmStorage.class, filmStorage);
+        List<Long> userIds = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            User user = new User(null, "login" + i, "user" + i + "@mail.ru", "User " + i, LocalDate.of(1990, 1, 1));
+            userIds.add(rest.postForObject("/users", user, User.class).getId());
+        }
+        List<Long> filmIds = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Film film = new Film(null, "Film " + i, "Description", LocalDate.of(2000, 1, 1), 100);
+            filmIds.add(rest.postForObject("/films", film, Film.class).getId());
+        }
+        assertTrue(users.getRouter().getNodes().stream().allMatch(node -> node.size() > 0));
+        assertTrue(films.getRouter().getNodes().stream().allMatch(node -> node.size() > 0));
+
+        // When
+        Long first = userIds.get(0);
+        Long second = userIds.get(1);
+        Long crossShardFriend = userIds.stream()
+                .filter(id -> users.getRouter().route(id) != users.getRouter().route(first))
+                .findFirst()
+                .orElseThrow();
+        put("/users/" + first + "/friends/" + crossShardFriend);
+        put("/users/" + second + "/friends/" + crossShardFriend);
+        for (int i = 0; i < filmIds.size(); i++) {
+            for (int like = 0; like < i % 7; like++) {
+                put("/films/" + filmIds.get(i) + "/like/" + userIds.get(like));
+            }
+        }
+
+        // Then
+        User[] common = rest.getForObject("/users/" + first + "/friends/common/" + second, User[].class);
+        assertEquals(1, common.length);
+        assertEquals(crossShardFriend, common[0].getId());
+
+        Film[] popular = rest.getForObject("/films/popular?count=5", Film[].class);
+        assertEquals(5, popular.length);
+        for (int i = 1; i < popular.length; i++) {
+            assertTrue(popular[i - 1].getLikes().size() >= popular[i].getLikes().size());
+        }
+        assertEquals(6, popular[0].getLikes().size());
+        ShardNode<User> friendNode = users.getRouter().route(crossShardFriend);
+        assertEquals(2, friendNode.get(crossShardFriend).orElseThrow().getFriends().size());
+    }
+
+    private void put(String path) {
+        ResponseEntity<Void> response = rest.exchange(path, HttpMethod.PUT, null, Void.class);
+        assertTrue(response.getStatusCode().is2xxSuccessful(), path);
+    }
+}
@@ -0,0 +1,73 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.serialization.VarintHttpMessageConverter;
+import ru.yandex.practicum.filmorate.serialization.VarintReader;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class VarintFormatIntegrationTest {
+
+    @Autowired
+    private TestRestTemplate rest;
+
+    @Test
+    void shouldWriteFilmsAndUsersInVarintFormat() {
+        // Given
+        User first = rest.postForObject("/users",
+                new User(null, "varint1", "varint1@mail.ru", "Varint", LocalDate.of(1990, 1, 1)), User.class);
+        User second = rest.postForObject("/users",
+                new User(null, "varint2", "varint2@mail.ru", null, LocalDate.of(1990, 1, 1)), User.class);
+        Film film = rest.postForObject("/films",
+                new Film(null, "Varint", "Description", LocalDate.of(1950, 1, 1), 100), Film.class);
+        rest.exchange("/films/" + film.getId() + "/like/" + first.getId(), HttpMethod.PUT, null, Void.class);
+        rest.exchange("/films/" + film.getId() + "/like/" + second.getId(), HttpMethod.PUT, null, Void.class);
+
+        // When
+        ResponseEntity<byte[]> filmResponse = get("/films/" + film.getId());
+        ResponseEntity<byte[]> usersResponse = get("/users");
+
+        // Then
+        assertEquals(HttpStatus.OK, filmResponse.getStatusCode());
+        Film decoded = new VarintReader(filmResponse.getBody()).readFilm();
+        assertEquals(film.getId(), decoded.getId());
+        assertEquals("Varint", decoded.getName());
+        assertEquals(LocalDate.of(1950, 1, 1), decoded.getReleaseDate());
+        assertEquals(Set.of(first.getId(), second.getId()), decoded.getLikes());
+        assertEquals(HttpStatus.OK, usersResponse.getStatusCode(), String.valueOf(usersResponse));
+        List<User> users = new VarintReader(usersResponse.getBody()).readUsers();
+        assertTrue(users.stream().anyMatch(user -> "varint2".equals(user.getLogin()) && user.getId() != null));
+    }
+
+    @Test
+    void shouldReturnNotAcceptableForOtherBodies() {
+        // When
+        ResponseEntity<byte[]> status = get("/replication/status");
+        ResponseEntity<byte[]> stats = get("/stats");
+
+        // Then
+        assertEquals(HttpStatus.NOT_ACCEPTABLE, status.getStatusCode());
+        assertEquals(HttpStatus.NOT_ACCEPTABLE, stats.getStatusCode());
+    }
+
+    private ResponseEntity<byte[]> get(String path) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.ACCEPT, VarintHttpMessageConverter.MEDIA_TYPE.toString());
+        return rest.exchange(path, HttpMethod.GET, new HttpEntity<>(headers), byte[].class);
+    }
+}
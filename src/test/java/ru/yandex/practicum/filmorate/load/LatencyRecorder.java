@@ -0,0 +1,46 @@
+package ru.yandex.practicum.filmorate.load;
+
+import java.util.Arrays;
+
+// Хранит все замеры одного потока; квантили считаются точно по отсортированной выборке
+class LatencyRecorder {
+    private long[] nanos = new long[1 << 14];
+    private int size;
+    private long errors;
+
+    void record(long latencyNanos, boolean success) {
+        if (size == nanos.length) {
+            nanos = Arrays.copyOf(nanos, size * 2);
+        }
+        nanos[size++] = latencyNanos;
+        if (!success) {
+            errors++;
+        }
+    }
+
+    void merge(LatencyRecorder other) {
+        for (int i = 0; i < other.size; i++) {
+            record(other.nanos[i], true);
+        }
+        errors += other.errors;
+    }
+
+    int count() {
+        return size;
+    }
+
+    long errors() {
+        return errors;
+    }
+
+    // Вызывается после завершения нагрузки, когда запись уже остановлена
+    double percentileMillis(double percentile) {
+        if (size == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(nanos, size);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100 * size) - 1;
+        return sorted[Math.max(0, Math.min(index, size - 1))] / 1e6;
+    }
+}
@@ -0,0 +1,28 @@
+package ru.yandex.practicum.filmorate.load;
+
+// Параметры прогона задаются системными свойствами: mvn test -Pload-test -Dload.users=10000 -Dload.slo.p99-ms=100
+class LoadConfig {
+    final long seed = Long.getLong("load.seed", 42);
+    final int users = Integer.getInteger("load.users", 2_000);
+    final int films = Integer.getInteger("load.films", 1_000);
+    final int likes = Integer.getInteger("load.likes", 20_000);
+    final int friendships = Integer.getInteger("load.friendships", 5_000);
+    // Потоки наполнения; сам прогон идёт с постоянной частотой rate и не больше maxInFlight запросов в полёте
+    final int threads = Integer.getInteger("load.threads", 16);
+    final int rate = Integer.getInteger("load.rate", 1_000);
+    final int maxInFlight = Integer.getInteger("load.max-in-flight", 1_024);
+    final int warmupSeconds = Integer.getInteger("load.warmup-seconds", 5);
+    final int durationSeconds = Integer.getInteger("load.duration-seconds", 30);
+    final double zipfExponent = doubleProperty("load.zipf-exponent", 1.1);
+
+    final double sloP50Millis = doubleProperty("load.slo.p50-ms", 50);
+    final double sloP99Millis = doubleProperty("load.slo.p99-ms", 250);
+    final double sloP999Millis = doubleProperty("load.slo.p999-ms", 1_000);
+    final double sloErrorRate = doubleProperty("load.slo.error-rate", 0.001);
+    final double sloMinThroughput = doubleProperty("load.slo.min-throughput", 0);
+
+    private static double doubleProperty(String name, double defaultValue) {
+        String value = System.getProperty(name);
+        return value == null || value.isBlank() ? defaultValue : Double.parseDouble(value);
+    }
+}
@@ -0,0 +1,299 @@
+package ru.yandex.practicum.filmorate.load;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ * Нагрузочный прогон: поднимает приложение на случайном порту, наполняет его через HTTP и в течение
+ * load.duration-seconds отправляет смешанный трафик по всем эндпоинтам фильмов и пользователей с постоянной
+ * частотой load.rate запросов в секунду. Задержка считается от запланированного момента отправки. Чтения
+ * преобладают, фильмы выбираются по Ципфу. Сборка падает, если задержки или доля ошибок хуже порогов
+ * load.slo.*. Все случайные решения выводятся из load.seed, поэтому прогоны воспроизводимы.
+ */
+// mvn test -Pload-test [-Dload.duration-seconds=60 -Dload.slo.p99-ms=100 ...]
+@Tag("load-test")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "logging.level.org.zalando.logbook=OFF",
+        "logging.level.ru.yandex.practicum.filmorate=WARN",
+        "filmorate.ratelimit.global.permits-per-second=1000000",
+        "filmorate.ratelimit.global.burst=1000000",
+        "filmorate.ratelimit.user.permits-per-second=1000000",
+        "filmorate.ratelimit.user.burst=1000000",
+        "filmorate.ratelimit.concurrency.initial-limit=1000",
+        "filmorate.ratelimit.concurrency.min-limit=1000",
+        "filmorate.ratelimit.concurrency.max-limit=1000"})
+class LoadTest {
+    private static final Pattern ID = Pattern.compile("\"id\"\\s*:\\s*(\\d+)");
+
+    @LocalServerPort
+    private int port;
+
+    private final LoadConfig config = new LoadConfig();
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final Queue<Long> disposableFilms = new ConcurrentLinkedQueue<>();
+    private final Queue<Long> disposableUsers = new ConcurrentLinkedQueue<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private long[] filmIds;
+    private long[] userIds;
+    private ZipfDistribution hotFilms;
+
+    private record Operation(String name, int weight, Function<Random, HttpRequest> request) {
+    }
+
+    @Test
+    void mixedTrafficShouldMeetSlo() throws Exception {
+        seed();
+        List<Operation> operations = operations();
+        run(operations, config.warmupSeconds, config.seed);
+        Map<String, LatencyRecorder> results = run(operations, config.durationSeconds, config.seed + 1);
+
+        LatencyRecorder total = new LatencyRecorder();
+        results.values().forEach(total::merge);
+        String report = report(results, total);
+        System.out.print(report);
+        Files.writeString(Path.of("target", "load-test-report.txt"), report);
+
+        double throughput = total.count() / (double) config.durationSeconds;
+        double errorRate = total.count() == 0 ? 1 : total.errors() / (double) total.count();
+        List<String> violations = new ArrayList<>();
+        check(violations, "p50", total.percentileMillis(50), config.sloP50Millis);
+        check(violations, "p99", total.percentileMillis(99), config.sloP99Millis);
+        check(violations, "p99.9", total.percentileMillis(99.9), config.sloP999Millis);
+        check(violations, "error rate", errorRate, config.sloErrorRate);
+        if (throughput < config.sloMinThroughput) {
+            violations.add(String.format("throughput %.0f req/s < %.0f req/s", throughput, config.sloMinThroughput));
+        }
+        assertTrue(violations.isEmpty(), "SLO нарушены: " + String.join("; ", violations));
+    }
+
+    private List<Operation> operations() {
+        return List.of(
+                new Operation("GET /films/{id}", 30, random -> get("/films/" + hotFilm(random))),
+                new Operation("GET /films/popular", 20, random -> get("/films/popular?count=10")),
+                new Operation("GET /users/{id}/friends", 12, random -> get("/users/" + user(random) + "/friends")),
+                new Operation("GET /users/{id}", 8, random -> get("/users/" + user(random))),
+                new Operation("GET /users/{id}/friends/common/{otherId}", 5,
+                        random -> get("/users/" + user(random) + "/friends/common/" + user(random))),
+                new Operation("GET /films", 2, random -> get("/films")),
+                new Operation("GET /users", 2, random -> get("/users")),
+                new Operation("PUT /films/{id}/like/{userId}", 8,
+                        random -> send("PUT", "/films/" + hotFilm(random) + "/like/" + user(random), null)),
+                new Operation("DELETE /films/{id}/like/{userId}", 3,
+                        random -> send("DELETE", "/films/" + hotFilm(random) + "/like/" + user(random), null)),
+                new Operation("PUT /users/{id}/friends/{friendId}", 3, random -> friendRequest("PUT", random)),
+                new Operation("DELETE /users/{id}/friends/{friendId}", 1, random -> friendRequest("DELETE", random)),
+                new Operation("PUT /films", 2, random -> send("PUT", "/films", filmJson(hotFilm(random)))),
+                new Operation("PUT /users", 1, random -> send("PUT", "/users", userJson(user(random)))),
+                new Operation("POST /films", 1, random -> send("POST", "/films", filmJson(null))),
+                new Operation("POST /users", 1, random -> send("POST", "/users", userJson(null))),
+                new Operation("DELETE /films/{id}", 1, random -> delete("/films/", disposableFilms)),
+                new Operation("DELETE /users/{id}", 1, random -> delete("/users/", disposableUsers)));
+    }
+
+    private void seed() throws Exception {
+        long started = System.nanoTime();
+        Random random = new Random(config.seed);
+        userIds = create(config.users, index -> send("POST", "/users", userJson(null)));
+        filmIds = create(config.films, index -> send("POST", "/films", filmJson(null)));
+        hotFilms = new ZipfDistribution(filmIds.length, config.zipfExponent);
+        for (long id : create(config.films / 10, index -> send("POST", "/films", filmJson(null)))) {
+            disposableFilms.add(id);
+        }
+        for (long id : create(config.users / 10, index -> send("POST", "/users", userJson(null)))) {
+            disposableUsers.add(id);
+        }
+        List<HttpRequest> relations = new ArrayList<>();
+        for (int i = 0; i < config.likes; i++) {
+            relations.add(send("PUT", "/films/" + hotFilm(random) + "/like/" + user(random), null));
+        }
+        for (int i = 0; i < config.friendships; i++) {
+            relations.add(friendRequest("PUT", random));
+        }
+        execute(relations);
+        System.out.printf("Seeded %d users, %d films, %d likes, %d friendships in %.1f s%n", config.users,
+                config.films, config.likes, config.friendships, (System.nanoTime() - started) / 1e9);
+    }
+
+    private long[] create(int count, Function<Integer, HttpRequest> request) throws Exception {
+        List<HttpRequest> requests = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            requests.add(request.apply(i));
+        }
+        List<String> bodies = execute(requests);
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = id(bodies.get(i));
+        }
+        return ids;
+    }
+
+    private List<String> execute(List<HttpRequest> requests) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(config.threads);
+        try {
+            List<Future<String>> futures = new ArrayList<>();
+            for (HttpRequest request : requests) {
+                futures.add(executor.submit(() -> {
+                    HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                    assertEquals(200, response.statusCode(), () -> request + ": " + response.body());
+                    return response.body();
+                }));
+            }
+            List<String> bodies = new ArrayList<>();
+            for (Future<String> future : futures) {
+                bodies.add(future.get());
+            }
+            return bodies;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // Открытая модель: запросы уходят по расписанию с частотой load.rate независимо от ответов, а задержка
+    // считается от запланированного момента отправки. Медленный ответ не откладывает следующие запросы,
+    // поэтому очередь перед сервером попадает в перцентили, а не прячется (coordinated omission)
+    private Map<String, LatencyRecorder> run(List<Operation> operations, int seconds, long seed) throws Exception {
+        int totalWeight = operations.stream().mapToInt(Operation::weight).sum();
+        Random random = new Random(seed);
+        Map<String, LatencyRecorder> results = new ConcurrentSkipListMap<>();
+        Semaphore inFlight = new Semaphore(config.maxInFlight);
+        long total = (long) config.rate * seconds;
+        long start = System.nanoTime();
+        for (long i = 0; i < total; i++) {
+            long scheduled = start + i * TimeUnit.SECONDS.toNanos(1) / config.rate;
+            long delay = scheduled - System.nanoTime();
+            if (delay > 0) {
+                LockSupport.parkNanos(delay);
+            }
+            Operation operation = pick(operations, totalWeight, random);
+            HttpRequest request = operation.request().apply(random);
+            if (request == null) {
+                continue;
+            }
+            LatencyRecorder recorder = results.computeIfAbsent(operation.name(), name -> new LatencyRecorder());
+            inFlight.acquire();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+                long latency = System.nanoTime() - scheduled;
+                synchronized (recorder) {
+                    recorder.record(latency, error == null && response.statusCode() == 200);
+                }
+                inFlight.release();
+            });
+        }
+        assertTrue(inFlight.tryAcquire(config.maxInFlight, 60, TimeUnit.SECONDS),
+                "не дождались ответов на запросы прогона за 60 секунд");
+        return results;
+    }
+
+    private static Operation pick(List<Operation> operations, int totalWeight, Random random) {
+        int point = random.nextInt(totalWeight);
+        for (Operation operation : operations) {
+            point -= operation.weight();
+            if (point < 0) {
+                return operation;
+            }
+        }
+        return operations.get(operations.size() - 1);
+    }
+
+    private String report(Map<String, LatencyRecorder> results, LatencyRecorder total) {
+        StringBuilder report = new StringBuilder(String.format("%n%-42s %9s %9s %9s %9s %9s %7s%n",
+                "operation", "count", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "errors"));
+        results.forEach((name, recorder) -> report.append(line(name, recorder)));
+        report.append(line("TOTAL", total));
+        return report.toString();
+    }
+
+    private String line(String name, LatencyRecorder recorder) {
+        return String.format("%-42s %9d %9.0f %9.2f %9.2f %9.2f %7d%n", name, recorder.count(),
+                recorder.count() / (double) config.durationSeconds, recorder.percentileMillis(50),
+                recorder.percentileMillis(99), recorder.percentileMillis(99.9), recorder.errors());
+    }
+
+    private static void check(List<String> violations, String name, double actual, double threshold) {
+        if (actual > threshold) {
+            violations.add(String.format("%s %.3f > %.3f", name, actual, threshold));
+        }
+    }
+
+    private long hotFilm(Random random) {
+        return filmIds[hotFilms.sample(random)];
+    }
+
+    private long user(Random random) {
+        return userIds[random.nextInt(userIds.length)];
+    }
+
+    private HttpRequest friendRequest(String method, Random random) {
+        int first = random.nextInt(userIds.length);
+        int second = (first + 1 + random.nextInt(userIds.length - 1)) % userIds.length;
+        return send(method, "/users/" + userIds[first] + "/friends/" + userIds[second], null);
+    }
+
+    private HttpRequest delete(String path, Queue<Long> ids) {
+        Long id = ids.poll();
+        return id == null ? null : send("DELETE", path + id, null);
+    }
+
+    private String filmJson(Long id) {
+        return String.format("{%s\"name\":\"Film %d\",\"description\":\"Load test film\","
+                + "\"releaseDate\":\"2000-01-01\",\"duration\":100}", idField(id), sequence.incrementAndGet());
+    }
+
+    private String userJson(Long id) {
+        long number = sequence.incrementAndGet();
+        return String.format("{%s\"login\":\"load%d\",\"email\":\"load%d@mail.ru\",\"name\":\"Load %d\","
+                + "\"birthday\":\"1990-01-01\"}", idField(id), number, number, number);
+    }
+
+    private static String idField(Long id) {
+        return id == null ? "" : "\"id\":" + id + ",";
+    }
+
+    private static long id(String body) {
+        Matcher matcher = ID.matcher(body);
+        assertTrue(matcher.find(), body);
+        return Long.parseLong(matcher.group(1));
+    }
+
+    private HttpRequest get(String path) {
+        return send("GET", path, null);
+    }
+
+    private HttpRequest send(String method, String path, String json) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path));
+        if (json == null) {
+            return builder.method(method, HttpRequest.BodyPublishers.noBody()).build();
+        }
+        return builder.header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+}